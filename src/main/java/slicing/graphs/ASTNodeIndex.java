@@ -0,0 +1,63 @@
+package slicing.graphs;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import slicing.nodes.GraphNode;
+import slicing.utils.ASTUtils;
+
+import java.util.*;
+
+/**
+ * An index of the nodes of a graph by the position of their AST node: compilation unit (by identity)
+ * and range. It narrows down the nodes that may match {@link ASTUtils#equalsWithRangeInCU(Node, Node)}
+ * without traversing the whole graph.
+ * @see Graph#findAllNodesByASTNode(Node)
+ */
+public class ASTNodeIndex {
+    protected final Map<CompilationUnit, Map<Range, List<GraphNode<?>>>> nodeMap = ASTUtils.newIdentityHashMap();
+
+    /** Creates an index containing the given nodes. */
+    public ASTNodeIndex(Collection<GraphNode<?>> nodes) {
+        nodes.forEach(this::add);
+    }
+
+    public synchronized void add(GraphNode<?> node) {
+        Node astNode = node.getAstNode();
+        if (astNode == null || astNode.getRange().isEmpty())
+            return;
+        Optional<CompilationUnit> cu = astNode.findCompilationUnit();
+        if (cu.isEmpty())
+            return;
+        nodeMap.computeIfAbsent(cu.get(), k -> new HashMap<>())
+                .computeIfAbsent(astNode.getRange().get(), k -> new ArrayList<>(1))
+                .add(node);
+    }
+
+    public synchronized void remove(GraphNode<?> node) {
+        Node astNode = node.getAstNode();
+        if (astNode == null || astNode.getRange().isEmpty())
+            return;
+        Optional<CompilationUnit> cu = astNode.findCompilationUnit();
+        if (cu.isEmpty() || !nodeMap.containsKey(cu.get()))
+            return;
+        List<GraphNode<?>> list = nodeMap.get(cu.get()).get(astNode.getRange().get());
+        if (list != null)
+            list.remove(node);
+    }
+
+    /**
+     * The nodes that may represent the given AST node. If the result is empty, this index can't
+     * answer the query (e.g. the AST node has no range, or belongs to a compilation unit that is
+     * not indexed, such as a copy), and all nodes in the graph must be checked.
+     */
+    public synchronized Optional<List<GraphNode<?>>> candidatesFor(Node astNode) {
+        if (astNode == null || astNode.getRange().isEmpty())
+            return Optional.empty();
+        Optional<CompilationUnit> cu = astNode.findCompilationUnit();
+        if (cu.isEmpty() || !nodeMap.containsKey(cu.get()))
+            return Optional.empty();
+        List<GraphNode<?>> list = nodeMap.get(cu.get()).get(astNode.getRange().get());
+        return Optional.of(list == null ? List.of() : new ArrayList<>(list));
+    }
+}
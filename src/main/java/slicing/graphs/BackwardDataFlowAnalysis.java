@@ -8,6 +8,11 @@ import java.util.stream.Collectors;
 
 /**
  * A fixed-point analysis algorithm that propagates changes backwards through a given graph.
+ * <br/>
+ * The graph is condensed into its strongly connected components, which are solved in reverse
+ * topological order: when a component is solved, every component it depends on has already
+ * reached its fixed point. Within a component, a worklist without duplicates is used, and only
+ * the vertices of that component are revisited.
  * @param <V> The graph's vertices type.
  * @param <E> The graph's edges type.
  * @param <D> The value to be computed for each vertex.
@@ -17,36 +22,142 @@ public abstract class BackwardDataFlowAnalysis<V, E, D> {
     /** The graph on which this algorithm iterates. */
     protected final AbstractGraph<V, E> graph;
     /** A mapping of the latest value computed per node. */
-    protected final Map<V, D> vertexDataMap = new HashMap<>();
+    protected final Map<V, D> vertexDataMap;
 
     protected boolean built = false;
 
     public BackwardDataFlowAnalysis(AbstractGraph<V, E> graph) {
+        this(graph, new HashMap<>());
+    }
+
+    /** @param vertexDataMap An empty map to store the values, which must be thread-safe if
+     *                      subclasses compute them concurrently. */
+    protected BackwardDataFlowAnalysis(AbstractGraph<V, E> graph, Map<V, D> vertexDataMap) {
         this.graph = graph;
+        this.vertexDataMap = vertexDataMap;
     }
 
     /** Iterate through the graph until a fixed-point is reached.
      *  This method only performs the analysis on its first call. */
     public void analyze() {
         assert !built;
-        List<V> workList = new LinkedList<>(graph.vertexSet());
         graph.vertexSet().forEach(v -> vertexDataMap.put(v, initialValue(v)));
+        for (Set<V> component : componentsInReverseTopologicalOrder())
+            analyzeComponent(component);
+        built = true;
+    }
+
+    /** Iterate through a strongly connected component until a fixed-point is reached. Vertices
+     *  outside the component are either already solved or will be visited afterwards. */
+    protected void analyzeComponent(Set<V> component) {
+        Deque<V> workList = new ArrayDeque<>(component);
+        Set<V> pending = new HashSet<>(component);
         while (!workList.isEmpty()) {
-            List<V> newWorkList = new LinkedList<>();
-            for (V vertex : workList) {
-                try {
-                    Set<V> mayAffectVertex = graph.outgoingEdgesOf(vertex).stream()
-                            .map(graph::getEdgeTarget).collect(Collectors.toCollection(ASTUtils::newIdentityHashSet));
-                    D newValue = compute(vertex, mayAffectVertex);
-                    if (!dataMatch(vertexDataMap.get(vertex), newValue)) {
-                        vertexDataMap.put(vertex, newValue);
-                        graph.incomingEdgesOf(vertex).stream().map(graph::getEdgeSource).forEach(newWorkList::add);
+            V vertex = workList.poll();
+            pending.remove(vertex);
+            try {
+                Set<V> mayAffectVertex = graph.outgoingEdgesOf(vertex).stream()
+                        .map(graph::getEdgeTarget).collect(Collectors.toCollection(ASTUtils::newIdentityHashSet));
+                D newValue = compute(vertex, mayAffectVertex);
+                if (!dataMatch(vertexDataMap.get(vertex), newValue)) {
+                    vertexDataMap.put(vertex, newValue);
+                    // compute() may read the vertex's own latest value, so it is visited again too
+                    if (pending.add(vertex))
+                        workList.add(vertex);
+                    for (E edge : graph.incomingEdgesOf(vertex)) {
+                        V source = graph.getEdgeSource(edge);
+                        if (component.contains(source) && pending.add(source))
+                            workList.add(source);
                     }
-                } catch (IllegalArgumentException ignored) {}
+                }
+            } catch (IllegalArgumentException ignored) {}
+        }
+    }
+
+    /** The strongly connected components of the graph, ordered so that each component appears
+     *  after every component reachable from it. They are found with Tarjan's algorithm, following the
+     *  order of the vertices and edges of the graph, and the vertices of each component keep that order
+     *  too. As {@link #compute(Object, Set)} may have side effects, the analysis must not depend on hashing. */
+    protected List<Set<V>> componentsInReverseTopologicalOrder() {
+        List<V> vertices = new ArrayList<>(graph.vertexSet());
+        Map<V, Integer> positionMap = new HashMap<>();
+        for (int i = 0; i < vertices.size(); i++)
+            positionMap.put(vertices.get(i), i);
+        int[] index = new int[vertices.size()];
+        int[] lowLink = new int[vertices.size()];
+        boolean[] onStack = new boolean[vertices.size()];
+        Arrays.fill(index, -1);
+        List<Iterator<E>> edgeIterators = new ArrayList<>(Collections.nCopies(vertices.size(), null));
+        Deque<Integer> stack = new ArrayDeque<>();
+        Deque<Integer> callStack = new ArrayDeque<>();
+        List<Set<V>> components = new ArrayList<>();
+        int counter = 0;
+        for (int root = 0; root < vertices.size(); root++) {
+            if (index[root] >= 0)
+                continue;
+            index[root] = lowLink[root] = counter++;
+            stack.push(root);
+            onStack[root] = true;
+            callStack.push(root);
+            edgeIterators.set(root, graph.outgoingEdgesOf(vertices.get(root)).iterator());
+            while (!callStack.isEmpty()) {
+                int v = callStack.peek();
+                Iterator<E> it = edgeIterators.get(v);
+                if (it.hasNext()) {
+                    int w = positionMap.get(graph.getEdgeTarget(it.next()));
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = counter++;
+                        stack.push(w);
+                        onStack[w] = true;
+                        callStack.push(w);
+                        edgeIterators.set(w, graph.outgoingEdgesOf(vertices.get(w)).iterator());
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+                callStack.pop();
+                edgeIterators.set(v, null);
+                if (!callStack.isEmpty())
+                    lowLink[callStack.peek()] = Math.min(lowLink[callStack.peek()], lowLink[v]);
+                if (lowLink[v] == index[v]) {
+                    List<Integer> members = new ArrayList<>();
+                    int w;
+                    do {
+                        w = stack.pop();
+                        onStack[w] = false;
+                        members.add(w);
+                    } while (w != v);
+                    Collections.sort(members);
+                    Set<V> component = new LinkedHashSet<>();
+                    for (int member : members)
+                        component.add(vertices.get(member));
+                    components.add(component);
+                }
             }
-            workList = newWorkList;
         }
-        built = true;
+        return components;
+    }
+
+    /** The strongly connected components of the graph, grouped in levels. The components of a level only
+     *  reach components of previous levels, so they don't depend on each other and may be solved concurrently. */
+    protected List<List<Set<V>>> componentLevels() {
+        Map<V, Integer> levelMap = new HashMap<>();
+        List<List<Set<V>>> levels = new ArrayList<>();
+        for (Set<V> component : componentsInReverseTopologicalOrder()) {
+            int level = 0;
+            // The vertices of the component aren't in the map yet, the rest of targets are in previous levels
+            for (V vertex : component)
+                for (E edge : graph.outgoingEdgesOf(vertex))
+                    if (levelMap.containsKey(graph.getEdgeTarget(edge)))
+                        level = Math.max(level, levelMap.get(graph.getEdgeTarget(edge)) + 1);
+            for (V vertex : component)
+                levelMap.put(vertex, level);
+            if (level == levels.size())
+                levels.add(new ArrayList<>());
+            levels.get(level).add(component);
+        }
+        return levels;
     }
 
     /** Checks whether the computed value has changed or not. */
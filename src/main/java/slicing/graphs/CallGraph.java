@@ -11,6 +11,8 @@ import com.github.javaparser.ast.nodeTypes.NodeWithSimpleName;
 import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.resolution.Resolvable;
+import com.github.javaparser.resolution.declarations.ResolvedConstructorDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedPseudograph;
@@ -19,6 +21,7 @@ import slicing.nodes.GraphNode;
 import slicing.utils.ASTUtils;
 import slicing.utils.NodeHashSet;
 import slicing.utils.NodeNotFoundException;
+import slicing.utils.ResolutionCache;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -40,6 +43,10 @@ import java.util.stream.Stream;
 public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.Edge<?>> implements Buildable<NodeList<CompilationUnit>> {
     private final Map<CallableDeclaration<?>, CFG> cfgMap;
     private final ClassGraph classGraph;
+    /** Index of the vertices by the declaration they contain (by identity). */
+    private final Map<CallableDeclaration<?>, Vertex> vertexMap = ASTUtils.newIdentityHashMap();
+    /** Index of the edges by the call they contain (by identity). */
+    private final Map<Node, List<Edge<?>>> callEdgeMap = ASTUtils.newIdentityHashMap();
 
     private boolean built = false;
 
@@ -49,15 +56,45 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
         this.classGraph = classGraph;
     }
 
+    /** Creates a call graph that can be built before any CFG, e.g., to decide which CFGs to build.
+     *  Its edges have no {@link Edge#getGraphNode() graph node}. */
+    public CallGraph(ClassGraph classGraph) {
+        this(null, classGraph);
+    }
+
+    /** A copy of this graph with only the given declarations and the calls among them, whose edges are
+     *  located in the given CFGs. As in {@link #build(NodeList)}, calls that can't be located are left out. */
+    public CallGraph restrictTo(Set<CallableDeclaration<?>> declarations, Map<CallableDeclaration<?>, CFG> cfgMap) {
+        CallGraph copy = new CallGraph(cfgMap, classGraph);
+        for (Vertex vertex : vertexSet())
+            if (declarations.contains(vertex.getDeclaration()))
+                copy.addVertex(vertex);
+        for (Edge<?> edge : edgeSet())
+            if (declarations.contains(edge.getSource()) && declarations.contains(edge.getTarget()))
+                copy.addEdge(edge.getSource(), edge.getTarget(), edge.getCall());
+        copy.built = true;
+        return copy;
+    }
+
     /** Resolve a call to all its possible declarations, by using the call AST nodes stored on the edges. */
     public Stream<CallableDeclaration<?>> getCallTargets(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-        return edgeSet().stream()
-                .filter(e -> ASTUtils.equalsWithRange(e.getCall(), call))
+        return edgesOfCall(call).stream()
                 .map(this::getEdgeTarget)
                 .map(Vertex::getDeclaration)
                 .map(decl -> (CallableDeclaration<?>) decl);
     }
 
+    /** The edges that represent the given call. Calls that are not part of this graph
+     *  (e.g., a copy of the original AST) are compared by range. */
+    protected List<Edge<?>> edgesOfCall(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
+        List<Edge<?>> edges = callEdgeMap.get((Node) call);
+        if (edges != null)
+            return edges;
+        return edgeSet().stream()
+                .filter(e -> ASTUtils.equalsWithRange(e.getCall(), call))
+                .collect(Collectors.toList());
+    }
+
     /** Locates the calls to a given declaration. The result is any node that represents a call. */
     public Stream<Node> callsTo(CallableDeclaration<?> callee) {
         return incomingEdgesOf(findVertexByDeclaration(callee)).stream()
@@ -87,11 +124,64 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
                 .map(Vertex::getDeclaration);
     }
 
+    /** Locates the incoming and outgoing edges of the given declaration, or
+     *  an empty set if the declaration is not part of this graph. */
+    public Set<Edge<?>> edgesOf(CallableDeclaration<?> declaration) {
+        return findVertex(declaration).map(this::edgesOf).orElse(Collections.emptySet());
+    }
+
     /** Locate the vertex that represents in this graph the given declaration. */
     protected Vertex findVertexByDeclaration(CallableDeclaration<?> declaration) {
+        return findVertex(declaration).orElseThrow();
+    }
+
+    /** Locate the vertex that represents in this graph the given declaration, if there is one.
+     *  Declarations that are not part of this graph are compared with {@link Vertex#matches(CallableDeclaration)}. */
+    public Optional<Vertex> findVertex(CallableDeclaration<?> declaration) {
+        Vertex vertex = vertexMap.get(declaration);
+        if (vertex != null)
+            return Optional.of(vertex);
         return vertexSet().stream()
                 .filter(v -> v.matches(declaration))
-                .findFirst().orElseThrow();
+                .findFirst();
+    }
+
+    @Override
+    public boolean addVertex(Vertex vertex) {
+        boolean added = super.addVertex(vertex);
+        if (added)
+            vertexMap.put(vertex.getDeclaration(), vertex);
+        return added;
+    }
+
+    @Override
+    public boolean removeVertex(Vertex vertex) {
+        boolean removed = super.removeVertex(vertex);
+        if (removed)
+            vertexMap.remove(vertex.getDeclaration());
+        return removed;
+    }
+
+    @Override
+    public boolean addEdge(Vertex source, Vertex target, Edge<?> edge) {
+        boolean added = super.addEdge(source, target, edge);
+        if (added)
+            callEdgeMap.computeIfAbsent((Node) edge.getCall(), k -> new ArrayList<>(1)).add(edge);
+        return added;
+    }
+
+    @Override
+    public boolean removeEdge(Edge<?> edge) {
+        boolean removed = super.removeEdge(edge);
+        if (removed) {
+            List<Edge<?>> edges = callEdgeMap.get((Node) edge.getCall());
+            if (edges != null) {
+                edges.remove(edge);
+                if (edges.isEmpty())
+                    callEdgeMap.remove((Node) edge.getCall());
+            }
+        }
+        return removed;
     }
 
     @Override
@@ -127,7 +217,7 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
 
     protected boolean addEdge(CallableDeclaration<?> source, CallableDeclaration<?> target, Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
         try {
-            Edge<?> edge = new Edge<>(call, findGraphNode(call, source));
+            Edge<?> edge = new Edge<>(call, cfgMap == null ? null : findGraphNode(call, source));
             return addEdge(findVertexByDeclaration(source), findVertexByDeclaration(target), edge);
         } catch (Exception e) {
             // Failed to create edge, just ignore
@@ -182,13 +272,14 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
             @Override
             public void visit(MethodCallExpr n, Void arg) {
                 try {
-                    if (n.resolve().toAst().isEmpty()) {
-                        CallableDeclaration<?> decl = classGraph.getMethodDeclarationBySig(ASTUtils.processSignature(n.resolve().getQualifiedSignature()));
+                    ResolvedMethodDeclaration resolved = ResolutionCache.resolve(n);
+                    if (resolved.toAst().isEmpty()) {
+                        CallableDeclaration<?> decl = classGraph.getMethodDeclarationBySig(ASTUtils.processSignature(resolved.getQualifiedSignature()));
                         if (decl != null) {
                             createPolyEdges(decl.asMethodDeclaration(), n);
                         }
                     } else {
-                        n.resolve().toAst().ifPresent(decl -> createPolyEdges(decl, n));
+                        resolved.toAst().ifPresent(decl -> createPolyEdges(decl, n));
                     }
                 } catch (RuntimeException ignored) {}
                 super.visit(n, arg);
@@ -197,13 +288,14 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
             @Override
             public void visit(ObjectCreationExpr n, Void arg) {
                 try {
-                    if (n.resolve().toAst().isEmpty()) {
-                        CallableDeclaration<?> decl = classGraph.getMethodDeclarationBySig(ASTUtils.processSignature(n.resolve().getQualifiedSignature()));
+                    ResolvedConstructorDeclaration resolved = ResolutionCache.resolve(n);
+                    if (resolved.toAst().isEmpty()) {
+                        CallableDeclaration<?> decl = classGraph.getMethodDeclarationBySig(ASTUtils.processSignature(resolved.getQualifiedSignature()));
                         if (decl != null) {
                             createNormalEdge(decl, n);
                         }
                     } else {
-                        n.resolve().toAst().ifPresent(decl -> createNormalEdge(decl, n));
+                        resolved.toAst().ifPresent(decl -> createNormalEdge(decl, n));
                     }
                 } catch (RuntimeException ignored) {}
                 super.visit(n, arg);
@@ -212,7 +304,7 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
             @Override
             public void visit(ExplicitConstructorInvocationStmt n, Void arg) {
                 try {
-                    n.resolve().toAst().ifPresent(decl -> createNormalEdge(decl, n));
+                    ResolutionCache.resolve(n).toAst().ifPresent(decl -> createNormalEdge(decl, n));
                 } catch (RuntimeException ignored) {}
                 super.visit(n, arg);
             }
@@ -239,21 +331,23 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
                         dynamicTypes = classGraph.subclassesOf(typeStack.peek());
                     } else if (scope.get().isThisExpr()) {
                         // c) 'ClassName.this', the given class and any subclass
-                        dynamicTypes = classGraph.subclassesOf(scope.get().asThisExpr().resolve().asClass());
+                        dynamicTypes = classGraph.subclassesOf(ResolutionCache.resolve(scope.get().asThisExpr()).asClass());
                     } else if (scope.get().isSuperExpr()) {
                         // d) 'super': start with the parent type and get the first implementation
                         dynamicTypes = Set.of(classGraph.parentOf(typeStack.peek()).orElseThrow());
                     } else {
                         // e) others: compute possible dynamic types of the expression (TODO)
-                        dynamicTypes = classGraph.subclassesOf(scope.get().calculateResolvedType().asReferenceType());
+                        dynamicTypes = classGraph.subclassesOf(ResolutionCache.calculateResolvedType(scope.get()).asReferenceType());
                     }
                     // Locate the corresponding methods for each possible dynamic type, they must be available to all
                     // To locate them, use the method signature and search for it in the class graph
                     // Connect to each declaration
+                    // The edges follow the order of the types, so that the graph doesn't depend on hash codes
                     AtomicInteger edgesCreated = new AtomicInteger();
+                    Set<MethodDeclaration> targets = new NodeHashSet<>();
                     dynamicTypes.stream()
                             .map(t -> classGraph.findMethodByTypeAndSignature(t, decl))
-                            .collect(Collectors.toCollection(NodeHashSet::new))
+                            .filter(targets::add)
                             .forEach(methodDecl -> {
                                 edgesCreated.getAndIncrement();
                                 createNormalEdge(methodDecl, call);
@@ -344,7 +438,7 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
 
         public Edge(T call, GraphNode<?> graphNode) {
             assert call instanceof MethodCallExpr || call instanceof ObjectCreationExpr || call instanceof ExplicitConstructorInvocationStmt;
-            assert graphNode.containsCall(call);
+            assert graphNode == null || graphNode.containsCall(call);
             this.call = call;
             this.graphNode = graphNode;
         }
@@ -354,7 +448,8 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
             return call;
         }
 
-        /** The graph node that contains the call represented by this edge. */
+        /** The graph node that contains the call represented by this edge, or null if the
+         *  graph was built {@link CallGraph#CallGraph(ClassGraph) without CFGs}. */
         public GraphNode<?> getGraphNode() {
             return graphNode;
         }
@@ -369,9 +464,9 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
 
         @Override
         public String toString() {
-            return String.format("%s -%d-> %s",
+            return String.format("%s -%s-> %s",
                     ((CallableDeclaration<?>) getSource()).getDeclarationAsString(false, false, false),
-                    graphNode.getId(),
+                    graphNode == null ? "" : graphNode.getId(),
                     ((CallableDeclaration<?>) getTarget()).getDeclarationAsString(false, false, false));
         }
     }
@@ -1,6 +1,5 @@
 package slicing.graphs;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
@@ -18,6 +17,7 @@ import org.jgrapht.graph.DirectedPseudograph;
 import slicing.arcs.Arc;
 import slicing.nodes.ObjectTree;
 import slicing.utils.ASTUtils;
+import slicing.utils.AnalysisContext;
 import slicing.utils.StaticConfig;
 
 import java.util.*;
@@ -27,18 +27,28 @@ import java.util.stream.Stream;
 import static slicing.nodes.ObjectTree.ROOT_NODE;
 
 public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassGraph.ClassArc> implements Buildable<NodeList<CompilationUnit>> {
-    private static ClassGraph instance = null;
-
-    /** Generates and returns a new class graph. This destroys the reference to the previous instance. */
+    /** Generates and returns a new class graph for the current {@link AnalysisContext}.
+     *  This destroys the context's reference to its previous class graph. */
     public static ClassGraph getNewInstance() {
-        instance = null;
-        return getInstance();
+        ClassGraph classGraph = new ClassGraph();
+        AnalysisContext.current().setClassGraph(classGraph);
+        return classGraph;
     }
 
+    /** The class graph of the current {@link AnalysisContext}. */
     public static ClassGraph getInstance() {
-        if (instance == null)
-            instance = new ClassGraph();
-        return instance;
+        AnalysisContext context = AnalysisContext.current();
+        ClassGraph classGraph = context.getClassGraph();
+        if (classGraph == null) {
+            synchronized (context) {
+                classGraph = context.getClassGraph();
+                if (classGraph == null) {
+                    classGraph = new ClassGraph();
+                    context.setClassGraph(classGraph);
+                }
+            }
+        }
+        return classGraph;
     }
 
     /** A map from the FQ class name to its corresponding vertex. Use {@code mapKey(...)} to locate the key. */
@@ -49,6 +59,9 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
     @Getter
     private final Map<String, ClassGraph.Vertex<CallableDeclaration<?>>> methodDeclarationMap = new HashMap<>();
 
+    /** The subclasses of each type vertex, including itself. Any change to the graph discards it. */
+    private final Map<Vertex<?>, Set<? extends TypeDeclaration<?>>> subclassCache = Collections.synchronizedMap(ASTUtils.newIdentityHashMap());
+
     private boolean built = false;
 
     private ClassGraph() {
@@ -84,7 +97,7 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
                         .filter(v -> v.declaration.isMethodDeclaration())
                         .filter(v -> v.declaration.asMethodDeclaration().getSignature().equals(method.getSignature()))
                         .map(v -> v.declaration.asMethodDeclaration()))
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     /** Locates a field declaration within a given type, given its name. */
@@ -121,14 +134,24 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
         return subclassesOf(classDeclarationMap.get(mapKey(type)));
     }
 
-    /** @see #subclassesOf(TypeDeclaration) */
+    /** The result is computed once per vertex and cannot be modified.
+     *  @see #subclassesOf(TypeDeclaration) */
     protected Set<? extends TypeDeclaration<?>> subclassesOf(Vertex<? extends TypeDeclaration<?>> v) {
+        Set<? extends TypeDeclaration<?>> subclasses = subclassCache.get(v);
+        if (subclasses == null) {
+            subclasses = computeSubclassesOf(v);
+            subclassCache.put(v, subclasses);
+        }
+        return subclasses;
+    }
+
+    protected Set<? extends TypeDeclaration<?>> computeSubclassesOf(Vertex<? extends TypeDeclaration<?>> v) {
         if (v.getDeclaration() instanceof EnumDeclaration)
             return Set.of(v.getDeclaration());
         return subclassesStreamOf(v)
                 .map(Vertex::getDeclaration)
                 .map(ClassOrInterfaceDeclaration.class::cast)
-                .collect(Collectors.toSet());
+                .collect(Collectors.collectingAndThen(Collectors.toCollection(LinkedHashSet::new), Collections::unmodifiableSet));
     }
 
     @SuppressWarnings("unchecked")
@@ -184,7 +207,7 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
                     // TODO: improve. Sometimes, the cu doesn't have the symbol solver. We readd that here.
                     method.getType().findCompilationUnit().ifPresentOrElse(cu -> {
                         if (!cu.containsData(Node.SYMBOL_RESOLVER_KEY))
-                            cu.setData(Node.SYMBOL_RESOLVER_KEY, StaticJavaParser.getConfiguration().getSymbolResolver().orElseThrow(() -> new IllegalStateException("Symbol resolution not configured: to configure consider setting a SymbolResolver in the ParserConfiguration")));
+                            cu.setData(Node.SYMBOL_RESOLVER_KEY, AnalysisContext.current().getSymbolResolver());
                     }, () -> { throw new IllegalStateException("The node is not inserted in a CompilationUnit"); });
                     return Optional.of(generateObjectTreeFor(method.getType().asClassOrInterfaceType().resolve()));
                 } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
@@ -310,6 +333,30 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
         return built;
     }
 
+    @Override
+    public boolean addEdge(Vertex<?> sourceVertex, Vertex<?> targetVertex, ClassArc classArc) {
+        subclassCache.clear();
+        return super.addEdge(sourceVertex, targetVertex, classArc);
+    }
+
+    @Override
+    public ClassArc removeEdge(Vertex<?> sourceVertex, Vertex<?> targetVertex) {
+        subclassCache.clear();
+        return super.removeEdge(sourceVertex, targetVertex);
+    }
+
+    @Override
+    public boolean removeEdge(ClassArc classArc) {
+        subclassCache.clear();
+        return super.removeEdge(classArc);
+    }
+
+    @Override
+    public boolean removeVertex(Vertex<?> vertex) {
+        subclassCache.clear();
+        return super.removeVertex(vertex);
+    }
+
     protected String mapKey(TypeDeclaration<?> n) {
         return n.getFullyQualifiedName().orElseThrow();
     }
@@ -0,0 +1,143 @@
+package slicing.graphs;
+
+import slicing.arcs.Arc;
+import slicing.arcs.sdg.InterproceduralArc;
+import slicing.nodes.GraphNode;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of a {@link Graph}, stored in compressed sparse row format for
+ * backward traversals. Each node is assigned a dense int id, and the incoming arcs of each
+ * node are stored contiguously, along with the id of their source and a byte that encodes
+ * the kind of arc (see the constants of this class).
+ * @see Graph#freeze()
+ */
+public class CompactGraph {
+    /** The arc is an {@link InterproceduralArc}. */
+    public static final byte INTERPROCEDURAL = 1;
+    /** @see Arc#isInterproceduralInputArc() */
+    public static final byte INTERPROCEDURAL_INPUT = 1 << 1;
+    /** @see Arc#isInterproceduralOutputArc() */
+    public static final byte INTERPROCEDURAL_OUTPUT = 1 << 2;
+    /** @see Arc#isControlDependencyArc() */
+    public static final byte CONTROL_DEPENDENCY = 1 << 3;
+    /** @see Arc#isConditionalControlDependencyArc() */
+    public static final byte CONDITIONAL_CONTROL_DEPENDENCY = 1 << 4;
+    /** @see Arc#isObjectFlow() */
+    public static final byte OBJECT_FLOW = 1 << 5;
+
+    protected final GraphNode<?>[] nodes;
+    protected final Map<GraphNode<?>, Integer> nodeIds;
+    /** The incoming arcs of node {@code n} are those in {@code [incomingOffsets[n], incomingOffsets[n + 1])}. */
+    protected final int[] incomingOffsets;
+    /** Source node of each arc. */
+    protected final int[] sources;
+    /** Kind of each arc, as a combination of this class' flags. */
+    protected final byte[] kinds;
+    protected final Arc[] arcs;
+
+    public CompactGraph(Graph graph) {
+        nodes = graph.vertexSet().toArray(new GraphNode<?>[0]);
+        nodeIds = new HashMap<>(nodes.length * 4 / 3 + 1);
+        for (int i = 0; i < nodes.length; i++)
+            nodeIds.put(nodes[i], i);
+        int arcCount = graph.edgeSet().size();
+        incomingOffsets = new int[nodes.length + 1];
+        sources = new int[arcCount];
+        kinds = new byte[arcCount];
+        arcs = new Arc[arcCount];
+        int a = 0;
+        for (int n = 0; n < nodes.length; n++) {
+            incomingOffsets[n] = a;
+            for (Arc arc : graph.incomingEdgesOf(nodes[n])) {
+                sources[a] = nodeIds.get(graph.getEdgeSource(arc));
+                kinds[a] = kindOf(arc);
+                arcs[a] = arc;
+                a++;
+            }
+        }
+        incomingOffsets[nodes.length] = a;
+    }
+
+    /** Encodes the kind of the given arc as a combination of this class' flags. */
+    public static byte kindOf(Arc arc) {
+        byte kind = 0;
+        if (arc instanceof InterproceduralArc)
+            kind |= INTERPROCEDURAL;
+        if (arc.isInterproceduralInputArc())
+            kind |= INTERPROCEDURAL_INPUT;
+        if (arc.isInterproceduralOutputArc())
+            kind |= INTERPROCEDURAL_OUTPUT;
+        if (arc.isControlDependencyArc())
+            kind |= CONTROL_DEPENDENCY;
+        if (arc.isConditionalControlDependencyArc())
+            kind |= CONDITIONAL_CONTROL_DEPENDENCY;
+        if (arc.isObjectFlow())
+            kind |= OBJECT_FLOW;
+        return kind;
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    public int arcCount() {
+        return arcs.length;
+    }
+
+    /** The id of the given node, or -1 if it isn't part of this graph. */
+    public int idOf(GraphNode<?> node) {
+        Integer id = nodeIds.get(node);
+        return id == null ? -1 : id;
+    }
+
+    public GraphNode<?> node(int id) {
+        return nodes[id];
+    }
+
+    /** Index of the first incoming arc of the given node. */
+    public int firstIncoming(int node) {
+        return incomingOffsets[node];
+    }
+
+    /** Index after the last incoming arc of the given node. */
+    public int endIncoming(int node) {
+        return incomingOffsets[node + 1];
+    }
+
+    public int inDegree(int node) {
+        return incomingOffsets[node + 1] - incomingOffsets[node];
+    }
+
+    /** The id of the source node of the given arc. */
+    public int source(int arc) {
+        return sources[arc];
+    }
+
+    public byte kind(int arc) {
+        return kinds[arc];
+    }
+
+    public Arc arc(int arc) {
+        return arcs[arc];
+    }
+
+    /** The incoming arcs of the given node, as an unmodifiable list backed by this graph. */
+    public List<Arc> incomingArcs(int node) {
+        return Collections.unmodifiableList(Arrays.asList(arcs).subList(incomingOffsets[node], incomingOffsets[node + 1]));
+    }
+
+    /** Ids of the given nodes, skipping those that aren't part of this graph. */
+    public int[] idsOf(Collection<GraphNode<?>> nodes) {
+        return nodes.stream().mapToInt(this::idOf).filter(id -> id >= 0).toArray();
+    }
+
+    /** The nodes whose ids are set in the given bitset. */
+    public Set<GraphNode<?>> nodesOf(BitSet ids) {
+        Set<GraphNode<?>> set = new HashSet<>(ids.cardinality() * 4 / 3 + 1);
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1))
+            set.add(nodes[id]);
+        return set;
+    }
+}
@@ -7,6 +7,7 @@ import slicing.nodes.GraphNode;
 import slicing.nodes.SyntheticNode;
 import slicing.utils.ASTUtils;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -14,10 +15,73 @@ import java.util.stream.Collectors;
 
 /** A generic base graph with some utility methods to more easily create and locate nodes. */
 public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
+    /** Index of the vertices by AST node, created on the first lookup and maintained afterwards. */
+    protected ASTNodeIndex astNodeIndex;
+    /** A snapshot of this graph for fast traversals, discarded whenever the graph is modified. */
+    protected volatile CompactGraph compactGraph;
+
     protected Graph() {
         super(null, null, false);
     }
 
+    @Override
+    public boolean addVertex(GraphNode<?> v) {
+        boolean added = super.addVertex(v);
+        if (added) {
+            compactGraph = null;
+            if (astNodeIndex != null)
+                astNodeIndex.add(v);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeVertex(GraphNode<?> v) {
+        boolean removed = super.removeVertex(v);
+        if (removed) {
+            compactGraph = null;
+            if (astNodeIndex != null)
+                astNodeIndex.remove(v);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean addEdge(GraphNode<?> sourceVertex, GraphNode<?> targetVertex, Arc arc) {
+        boolean added = super.addEdge(sourceVertex, targetVertex, arc);
+        if (added)
+            compactGraph = null;
+        return added;
+    }
+
+    @Override
+    public boolean removeEdge(Arc arc) {
+        boolean removed = super.removeEdge(arc);
+        if (removed)
+            compactGraph = null;
+        return removed;
+    }
+
+    @Override
+    public Arc removeEdge(GraphNode<?> sourceVertex, GraphNode<?> targetVertex) {
+        Arc arc = super.removeEdge(sourceVertex, targetVertex);
+        if (arc != null)
+            compactGraph = null;
+        return arc;
+    }
+
+    /** Takes a compact snapshot of the current state of this graph, which slicing algorithms
+     *  use until the graph is modified again. The storage of its nodes is trimmed as well. */
+    public void freeze() {
+        vertexSet().forEach(GraphNode::trimToSize);
+        compactGraph = new CompactGraph(this);
+    }
+
+    /** The snapshot taken by {@link #freeze()}, if the graph hasn't been modified since. */
+    public Optional<CompactGraph> getCompactGraph() {
+        return Optional.ofNullable(compactGraph);
+    }
+
     /** Creates and adds to the graph a normal node with the given label and AST. */
     public <T extends Node> GraphNode<T> addVertex(String label, T astNode) {
         GraphNode<T> node = new GraphNode<>(label, astNode);
@@ -31,7 +95,7 @@ public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
      *                                representing the given AST node. */
     @SuppressWarnings("unchecked")
     public <T extends Node> Optional<GraphNode<T>> findNodeByASTNode(T astNode) {
-        Set<GraphNode<?>> set = findAllNodes(n -> ASTUtils.equalsWithRangeInCU(n.getAstNode(), astNode));
+        Set<GraphNode<?>> set = findAllNodesByASTNode(astNode);
         if (set.isEmpty())
             return Optional.empty();
         if (set.size() == 1)
@@ -44,6 +108,22 @@ public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
         throw new IllegalStateException("There may only be one real node representing each AST node in the graph!");
     }
 
+    /** Search for all nodes that represent the given AST node, comparing them with
+     *  {@link ASTUtils#equalsWithRangeInCU(Node, Node)}. */
+    public Set<GraphNode<?>> findAllNodesByASTNode(Node astNode) {
+        Predicate<GraphNode<?>> matches = n -> ASTUtils.equalsWithRangeInCU(n.getAstNode(), astNode);
+        Optional<List<GraphNode<?>>> candidates = getASTNodeIndex().candidatesFor(astNode);
+        if (candidates.isEmpty())
+            return findAllNodes(matches);
+        return candidates.get().stream().filter(matches).collect(Collectors.toSet());
+    }
+
+    protected synchronized ASTNodeIndex getASTNodeIndex() {
+        if (astNodeIndex == null)
+            astNodeIndex = new ASTNodeIndex(vertexSet());
+        return astNodeIndex;
+    }
+
     /** Search for a node in the graph given a predicate it must pass.
      *  If multiple nodes match the predicate, the first one found is returned. */
     public Optional<GraphNode<?>> findNodeBy(Predicate<GraphNode<?>> p) {
@@ -13,7 +13,6 @@ import slicing.nodes.exceptionsensitive.ExceptionReturnNode;
 import slicing.nodes.exceptionsensitive.NormalReturnNode;
 import slicing.nodes.exceptionsensitive.ReturnNode;
 import slicing.slicing.PseudoPredicateSlicingAlgorithm;
-import slicing.utils.ASTUtils;
 import slicing.utils.NodeHashSet;
 import slicing.utils.Utils;
 
@@ -73,7 +72,7 @@ public class ConditionalControlDependencyBuilder {
     protected void buildCC2(GraphNode<CatchClause> cc) {
         NodeHashSet<Node> tryBlockInstructs = getTryBlockInstructs(cc.getAstNode());
         for (Node node : tryBlockInstructs)
-            for (GraphNode<?> dst : pdg.findAllNodes(n -> ASTUtils.equalsWithRangeInCU(n.getAstNode(), node)))
+            for (GraphNode<?> dst : pdg.findAllNodesByASTNode(node))
                 if (isExceptionSource(dst) && hasControlDependencePath(dst, cc, tryBlockInstructs))
                     pdg.addCC2Arc(cc, dst);
     }
@@ -69,7 +69,8 @@ public class ESCFG extends ACFG {
         }
 
         public void deactivateTypes(ResolvedReferenceType type) {
-            exceptions.keySet().stream().filter(type::isAssignableBy).forEach(t -> exceptions.put(t, false));
+            ExceptionTypeCache cache = ExceptionTypeCache.getInstance();
+            exceptions.keySet().stream().filter(t -> cache.isAssignableBy(type, t)).forEach(t -> exceptions.put(t, false));
         }
 
         public boolean isActive() {
@@ -276,10 +277,10 @@ public class ESCFG extends ACFG {
         /** Process a call that may throw exceptions. Generates normal and return nodes, and
          * registers the appropriate exception source. */
         protected void visitCallForExceptions(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-            ResolvedMethodLikeDeclaration resolved = null;
+            List<ResolvedType> thrownTypes;
             try {
-                resolved = call.resolve();
-                if (resolved.getNumberOfSpecifiedExceptions() == 0)
+                thrownTypes = ExceptionTypeCache.getInstance().thrownTypesOf(call);
+                if (thrownTypes.isEmpty())
                     return;
             } catch (Exception e) {
                 // If the method is not resolved, we can't know if it throws exceptions.
@@ -299,7 +300,7 @@ public class ESCFG extends ACFG {
             clearHanging();
 
             // Exception return
-            for (ResolvedType type : resolved.getSpecifiedExceptions()) {
+            for (ResolvedType type : thrownTypes) {
                 hangingNodes.add(stmtNode);
                 ExceptionReturnNode exceptionReturn = addExceptionReturnNode(call, type);
                 exceptionReturn.addVADefineActiveException(null);
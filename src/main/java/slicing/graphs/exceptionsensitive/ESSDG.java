@@ -5,6 +5,7 @@ import slicing.graphs.augmented.PPDG;
 import slicing.graphs.augmented.PSDG;
 import slicing.graphs.cfg.CFG;
 import slicing.graphs.pdg.PDG;
+import slicing.graphs.sdg.CallConnector;
 import slicing.nodes.exceptionsensitive.ExitNode;
 import slicing.nodes.exceptionsensitive.ReturnNode;
 import slicing.slicing.ExceptionSensitiveSlicingAlgorithm;
@@ -44,8 +45,8 @@ public class ESSDG extends PSDG {
         }
 
         @Override
-        protected void connectCalls() {
-            new ExceptionSensitiveCallConnector(ESSDG.this).connectAllCalls(callGraph);
+        protected CallConnector createCallConnector() {
+            return new ExceptionSensitiveCallConnector(ESSDG.this);
         }
     }
 }
@@ -51,9 +51,9 @@ public class ExceptionSourceSearcher extends GraphNodeContentVisitor<Void> {
 
     /** Check whether a call may throw exceptions or not. */
     public void visitCall(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-        ResolvedMethodLikeDeclaration declaration = call.resolve();
-        if (declaration.getNumberOfSpecifiedExceptions() > 0)
-            throw new FoundException(declaration.getSpecifiedExceptions());
+        Collection<ResolvedType> types = ExceptionTypeCache.getInstance().thrownTypesOf(call);
+        if (!types.isEmpty())
+            throw new FoundException(types);
     }
 
     /** An exception to skip the call stack when the value is found. */
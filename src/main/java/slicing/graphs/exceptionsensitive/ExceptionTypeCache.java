@@ -0,0 +1,85 @@
+package slicing.graphs.exceptionsensitive;
+
+import com.github.javaparser.resolution.Resolvable;
+import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.resolution.types.ResolvedType;
+import slicing.utils.AnalysisContext;
+import slicing.utils.ResolutionCache;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The exception types thrown by each declaration and the ancestors of each exception type, shared
+ * by the exception-sensitive CFGs of an {@link AnalysisContext analysis}. Calls to the same declaration
+ * and catch clauses of the same type are common, and resolving them again walks the same hierarchy
+ * through the type solver. It is thread-safe, as a context may be used by several threads.
+ * <br/>
+ * Like the {@link ResolutionCache}, it must be {@link #clear() cleared} whenever the compilation
+ * units being analysed change.
+ */
+public class ExceptionTypeCache {
+    /** The qualified names of each type and its ancestors, mapped by the qualified name of the type. */
+    protected final Map<String, Set<String>> ancestorMap = new ConcurrentHashMap<>();
+    /** The exception types specified by each declaration, mapped by its qualified signature. */
+    protected final Map<String, List<ResolvedType>> thrownTypesMap = new ConcurrentHashMap<>();
+
+    /** The cache of the current {@link AnalysisContext}. */
+    public static ExceptionTypeCache getInstance() {
+        return AnalysisContext.current().getExceptionTypeCache();
+    }
+
+    /** The qualified names of the given type and all its ancestors. */
+    public Set<String> ancestorsOf(ResolvedReferenceType type) {
+        String name = type.getQualifiedName();
+        Set<String> ancestors = ancestorMap.get(name);
+        if (ancestors == null) {
+            Set<String> set = new HashSet<>();
+            set.add(name);
+            for (ResolvedReferenceType ancestor : type.getAllAncestors())
+                set.add(ancestor.getQualifiedName());
+            ancestors = Collections.unmodifiableSet(set);
+            ancestorMap.putIfAbsent(name, ancestors);
+        }
+        return ancestors;
+    }
+
+    /** Whether a value of the given type may be caught by a catch clause of the given exception type. */
+    public boolean isAssignableBy(ResolvedReferenceType catchType, ResolvedType type) {
+        if (!type.isReferenceType())
+            return catchType.isAssignableBy(type);
+        return ancestorsOf(type.asReferenceType()).contains(catchType.getQualifiedName());
+    }
+
+    /** The exception types specified in the throws clause of the declaration targeted by the given call.
+     *  @throws RuntimeException If the call cannot be resolved. */
+    public List<ResolvedType> thrownTypesOf(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
+        return thrownTypesOf(ResolutionCache.resolve(call));
+    }
+
+    /** The exception types specified in the throws clause of the given declaration. */
+    public List<ResolvedType> thrownTypesOf(ResolvedMethodLikeDeclaration declaration) {
+        if (declaration.getNumberOfSpecifiedExceptions() == 0)
+            return List.of();
+        String signature;
+        try {
+            signature = declaration.getQualifiedSignature();
+        } catch (RuntimeException e) {
+            // Parameter types that cannot be resolved: it is not cached
+            return List.copyOf(declaration.getSpecifiedExceptions());
+        }
+        List<ResolvedType> types = thrownTypesMap.get(signature);
+        if (types == null) {
+            types = List.copyOf(declaration.getSpecifiedExceptions());
+            thrownTypesMap.putIfAbsent(signature, types);
+        }
+        return types;
+    }
+
+    /** Removes every cached type. */
+    public void clear() {
+        ancestorMap.clear();
+        thrownTypesMap.clear();
+    }
+}
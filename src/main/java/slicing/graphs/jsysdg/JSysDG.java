@@ -6,13 +6,17 @@ import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.visitor.ModifierVisitor;
 import com.github.javaparser.ast.visitor.Visitable;
+import org.jgrapht.graph.AbstractGraph;
 import slicing.arcs.pdg.StructuralArc;
+import slicing.graphs.CallGraph;
 import slicing.graphs.ClassGraph;
 import slicing.graphs.augmented.PSDG;
 import slicing.graphs.cfg.CFG;
 import slicing.graphs.exceptionsensitive.ESSDG;
 import slicing.graphs.exceptionsensitive.ExceptionSensitiveCallConnector;
 import slicing.graphs.pdg.PDG;
+import slicing.graphs.sdg.AbstractSummaryArcAnalyzer;
+import slicing.graphs.sdg.CallConnector;
 import slicing.nodes.GraphNode;
 import slicing.nodes.VariableAction;
 import slicing.nodes.io.FormalIONode;
@@ -21,6 +25,12 @@ import slicing.slicing.JSysDGSlicingAlgorithm;
 import slicing.slicing.SlicingAlgorithm;
 import slicing.utils.NodeHashSet;
 
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
 public class JSysDG extends ESSDG {
     @Override
     protected SlicingAlgorithm createSlicingAlgorithm() {
@@ -44,12 +54,26 @@ public class JSysDG extends ESSDG {
             super.build(nodeList);
         }
 
+        @Override
+        public void update(NodeList<CompilationUnit> nodeList, Set<CompilationUnit> removedCus, Set<CompilationUnit> addedCus) {
+            insertImplicitConstructors(new NodeList<>(addedCus));
+            super.update(nodeList, removedCus, addedCus);
+        }
+
         @Override
         protected void createClassGraph(NodeList<CompilationUnit> nodeList) {
             super.createClassGraph(nodeList);
             insertTypeNodes();
         }
 
+        /** The type nodes of the replaced compilation units have already been removed, so only
+         *  those of the added ones are inserted. */
+        @Override
+        protected void updateClassGraph(NodeList<CompilationUnit> nodeList, Set<CompilationUnit> addedCus) {
+            super.updateClassGraph(nodeList, addedCus);
+            insertTypeNodes(type -> type.findCompilationUnit().filter(addedCus::contains).isPresent());
+        }
+
         /** Create implicit constructors, and store them in a set so that they may be built with implicit nodes. */
         protected void insertImplicitConstructors(NodeList<CompilationUnit> nodeList) {
             nodeList.accept(new ModifierVisitor<>() {
@@ -85,18 +109,40 @@ public class JSysDG extends ESSDG {
             return new JSysPDG((JSysCFG) cfg);
         }
 
+        @Override
+        protected CallConnector createCallConnector() {
+            return new JSysCallConnector(JSysDG.this);
+        }
+
         @Override
         protected void connectCalls() {
-            new JSysCallConnector(JSysDG.this).connectAllCalls(callGraph);
+            super.connectCalls();
             connectEnumToFormalIn();
         }
 
+        @Override
+        protected void connectCalls(Set<GraphNode<?>> newNodes) {
+            super.connectCalls(newNodes);
+            // Only the pairs that include a new node are connected
+            List<GraphNode<?>> oldNodes = new LinkedList<>();
+            for (GraphNode<?> node : vertexSet())
+                if (!newNodes.contains(node))
+                    oldNodes.add(node);
+            connectEnumToFormalIn(vertexSet(), newNodes);
+            connectEnumToFormalIn(newNodes, oldNodes);
+        }
+
         protected void connectEnumToFormalIn() {
-            for (GraphNode<?> g1 : vertexSet()) {
+            connectEnumToFormalIn(vertexSet(), vertexSet());
+        }
+
+        /** Connects the enum type nodes among the first collection to the formal-in nodes among the second. */
+        protected void connectEnumToFormalIn(Collection<GraphNode<?>> enumNodes, Collection<GraphNode<?>> formalNodes) {
+            for (GraphNode<?> g1 : enumNodes) {
                 if (!(g1.getAstNode() instanceof EnumDeclaration))
                     continue;
                 VariableAction a1 = g1.getLastVariableAction();
-                for (GraphNode<?> g2 : vertexSet()) {
+                for (GraphNode<?> g2 : formalNodes) {
                     if (g2 instanceof FormalIONode) {
                         FormalIONode fIn = (FormalIONode) g2;
                         if (fIn.isInput() && fIn.getVariableName().equals(a1.getName()))
@@ -107,13 +153,20 @@ public class JSysDG extends ESSDG {
         }
 
         @Override
-        protected void createSummaryArcs() {
-            new SummaryArcAnalyzer(JSysDG.this, callGraph).analyze();
+        protected AbstractSummaryArcAnalyzer<?, ?, ?> createSummaryArcAnalyzer(AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph) {
+            return new SummaryArcAnalyzer(JSysDG.this, graph, summaries);
         }
 
         /** Adds type nodes (classes, interfaces, enums) to the SDG, along with their static fields. */
         protected void insertTypeNodes() {
+            insertTypeNodes(type -> true);
+        }
+
+        /** Adds the type nodes of the types that pass the filter to the SDG, along with their static fields. */
+        protected void insertTypeNodes(Predicate<TypeDeclaration<?>> filter) {
             for (ClassGraph.Vertex<? extends TypeDeclaration<?>> cgVertex : ClassGraph.getInstance().typeVertices()) {
+                if (!filter.test(cgVertex.getDeclaration()))
+                    continue;
                 String kind;
                 if (cgVertex.getDeclaration() instanceof EnumDeclaration) {
                     kind = "enum";
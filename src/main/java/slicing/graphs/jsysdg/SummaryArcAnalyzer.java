@@ -1,6 +1,7 @@
 package slicing.graphs.jsysdg;
 
 import com.github.javaparser.ast.body.CallableDeclaration;
+import org.jgrapht.graph.AbstractGraph;
 import slicing.arcs.Arc;
 import slicing.graphs.CallGraph;
 import slicing.graphs.sdg.AbstractSummaryArcAnalyzer;
@@ -11,7 +12,7 @@ import slicing.nodes.io.FormalIONode;
 import slicing.nodes.oo.MemberNode;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -20,10 +21,15 @@ import java.util.stream.Collectors;
  * return nodes. Additionally, it generates them between the object trees of each of the aforementioned nodes.
  */
 public class SummaryArcAnalyzer extends AbstractSummaryArcAnalyzer<SyntheticNode<?>, SyntheticNode<?>, SyntheticNode<?>> {
-    public SummaryArcAnalyzer(JSysDG sdg, CallGraph graph) {
+    public SummaryArcAnalyzer(JSysDG sdg, AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph) {
         super(sdg, graph);
     }
 
+    public SummaryArcAnalyzer(JSysDG sdg, AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph,
+                              Map<SyntheticNode<?>, Set<SyntheticNode<?>>> summaries) {
+        super(sdg, graph, summaries);
+    }
+
     @Override
     protected Set<SyntheticNode<?>> getFormalOutNodes(CallableDeclaration<?> declaration) {
         Set<SyntheticNode<?>> set = super.getFormalOutNodes(declaration);
@@ -38,14 +44,6 @@ public class SummaryArcAnalyzer extends AbstractSummaryArcAnalyzer<SyntheticNode
         return set;
     }
 
-    @Override
-    protected Set<SyntheticNode<?>> computeFormalIn(SyntheticNode<?> formalOut) {
-        Set<SyntheticNode<?>> result = new HashSet<>();
-        for (GraphNode<?> graphNode : ((JSysDG) sdg).createSlicingAlgorithm().traverseProcedure(formalOut).getGraphNodes())
-            if (isFormalIn(graphNode) && graphNode instanceof SyntheticNode)
-                result.add((SyntheticNode<?>) graphNode);
-        return result;
-    }
 
     @Override
     protected Collection<? extends SyntheticNode<?>> findActualIn(CallGraph.Edge<?> edge, SyntheticNode<?> formalIn) {
@@ -67,9 +65,18 @@ public class SummaryArcAnalyzer extends AbstractSummaryArcAnalyzer<SyntheticNode
                 .collect(Collectors.toSet());
     }
 
-    private boolean isFormalIn(GraphNode<?> graphNode) {
+    @Override
+    protected boolean isFormalIn(GraphNode<?> graphNode) {
         GraphNode<?> parent = goToParent(graphNode);
-        return parent instanceof FormalIONode && ((FormalIONode) parent).isInput();
+        return graphNode instanceof SyntheticNode && parent instanceof FormalIONode && ((FormalIONode) parent).isInput();
+    }
+
+    @Override
+    protected boolean isOutputNode(GraphNode<?> graphNode) {
+        for (Arc arc : sdg.incomingEdgesOf(graphNode))
+            if (arc.isInterproceduralOutputArc())
+                return true;
+        return false;
     }
 
     private GraphNode<?> goToParent(GraphNode<?> memberNode) {
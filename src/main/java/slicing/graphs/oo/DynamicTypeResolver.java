@@ -17,19 +17,33 @@ import slicing.nodes.VariableAction;
 import slicing.nodes.io.ActualIONode;
 import slicing.nodes.io.FormalIONode;
 import slicing.utils.ASTUtils;
+import slicing.utils.ResolutionCache;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-/** A dynamic type solver that complements JavaParser's {@code resolve()} method. */
+/**
+ * A dynamic type solver that complements JavaParser's {@code resolve()} method.
+ * <br/>
+ * The types of each expression are memoized per container node, so that expressions reached
+ * repeatedly (e.g. the return statements of a method called from many places) are only resolved once.
+ * Cycles (e.g. recursive calls) are cut when an expression is reached again while being resolved: that
+ * path contributes no new types, and the results that depended on the unfinished one aren't memoized.
+ * This class is not thread-safe, and must be {@link #clearCache() cleared} if the graphs change.
+ */
 public class DynamicTypeResolver {
     protected final Map<CallableDeclaration<?>, CFG> cfgMap;
     protected final ClassGraph classGraph;
     protected final CallGraph callGraph;
+    /** The possible dynamic types of each expression, in the context of its container node. */
+    protected final Map<Key, Set<ResolvedType>> typeMemo = new HashMap<>();
+    /** The expressions being resolved, and their depth in the chain of resolutions. */
+    protected final Map<Key, Integer> inProgress = new HashMap<>();
+    /** The shallowest depth reached again by a cycle since the last memoized result. */
+    protected int cycleDepth = Integer.MAX_VALUE;
+    /** The declaration that contains each node of the CFGs, created on demand. */
+    protected Map<GraphNode<?>, CallableDeclaration<?>> declarationMap;
 
     public DynamicTypeResolver(Map<CallableDeclaration<?>, CFG> cfgMap, ClassGraph classGraph, CallGraph callGraph) {
         this.cfgMap = cfgMap;
@@ -40,12 +54,48 @@ public class DynamicTypeResolver {
     /** Obtains the possible dynamic types of the given expression, which is contained within a GraphNode.
      *  Only expressions of a reference type are allowed (e.g. objects, arrays, but not primitives). */
     public Set<ResolvedType> resolve(Expression expression, GraphNode<?> container) {
-        assert expression.calculateResolvedType().isReference(): "The expression must be of reference type (no primitives).";
+        assert ResolutionCache.calculateResolvedType(expression).isReference(): "The expression must be of reference type (no primitives).";
+        cycleDepth = Integer.MAX_VALUE;
         return resolveStreamed(expression, container).collect(Collectors.toSet());
     }
 
-    /** Directs each kind of expression to the appropriate resolve method. */
+    /** Removes every memoized result, which must be done if the graphs used by this resolver change. */
+    public void clearCache() {
+        assert inProgress.isEmpty();
+        typeMemo.clear();
+        declarationMap = null;
+    }
+
+    /** Obtains the memoized types of the expression, or resolves them. If the expression is already
+     *  being resolved, the cycle is cut and no types are returned. */
     protected Stream<ResolvedType> resolveStreamed(Expression expression, GraphNode<?> container) {
+        Key key = new Key(expression, container);
+        Set<ResolvedType> types = typeMemo.get(key);
+        if (types != null)
+            return types.stream();
+        Integer depth = inProgress.get(key);
+        if (depth != null) {
+            cycleDepth = Math.min(cycleDepth, depth);
+            return Stream.empty();
+        }
+        depth = inProgress.size();
+        inProgress.put(key, depth);
+        try {
+            types = resolveUncached(expression, container).collect(Collectors.collectingAndThen(
+                    Collectors.toCollection(LinkedHashSet::new), Collections::unmodifiableSet));
+        } finally {
+            inProgress.remove(key);
+        }
+        // Results that depend on an unfinished resolution are incomplete
+        if (cycleDepth >= depth) {
+            typeMemo.put(key, types);
+            cycleDepth = Integer.MAX_VALUE;
+        }
+        return types.stream();
+    }
+
+    /** Directs each kind of expression to the appropriate resolve method. */
+    protected Stream<ResolvedType> resolveUncached(Expression expression, GraphNode<?> container) {
         if (expression.isMethodCallExpr())
             return resolveMethodCallExpr(expression.asMethodCallExpr());
         if (expression.isNameExpr() || expression.isFieldAccessExpr()) // May be field, local variable or parameter
@@ -59,13 +109,13 @@ public class DynamicTypeResolver {
             return resolveStreamed(expression.asEnclosedExpr().getInner(), container);
         if (expression.isObjectCreationExpr() ||
                 expression.isArrayCreationExpr())
-            return Stream.of(expression.calculateResolvedType());
+            return Stream.of(ResolutionCache.calculateResolvedType(expression));
         throw new IllegalArgumentException("The given expression is not an object-compatible one.");
     }
 
     /** Checks the possible values of all ReturnStmt of this call's target methods. */
     protected Stream<ResolvedType> resolveMethodCallExpr(MethodCallExpr methodCallExpr) {
-        assert !methodCallExpr.calculateResolvedType().isVoid();
+        assert !ResolutionCache.calculateResolvedType(methodCallExpr).isVoid();
         return callGraph.getCallTargets(methodCallExpr)
                 .filter(ASTUtils::hasBody) // abstract or interface methods must be skipped
                 .map(cfgMap::get)
@@ -99,12 +149,19 @@ public class DynamicTypeResolver {
                 });
     }
 
-    /** Locate the declaration (method or constructor) where the given node is located. */
+    /** Locate the declaration (method or constructor) where the given node is located.
+     *  All CFGs are indexed the first time a declaration is searched. */
     protected CallableDeclaration<?> findCallableDeclarationFromGraphNode(GraphNode<?> node) {
-        return cfgMap.values().stream()
-                .filter(cfg -> cfg.containsVertex(node))
-                .map(CFG::getDeclaration)
-                .findFirst().orElseThrow();
+        if (declarationMap == null) {
+            declarationMap = ASTUtils.newIdentityHashMap();
+            for (CFG cfg : cfgMap.values())
+                for (GraphNode<?> vertex : cfg.vertexSet())
+                    declarationMap.putIfAbsent(vertex, cfg.getDeclaration());
+        }
+        CallableDeclaration<?> declaration = declarationMap.get(node);
+        if (declaration == null)
+            throw new NoSuchElementException("No CFG contains the node " + node);
+        return declaration;
     }
 
     /** Looks up the expression assigned to all corresponding actual-in nodes and resolves it. */
@@ -127,9 +184,14 @@ public class DynamicTypeResolver {
                 });
     }
 
-    /** Locate the CFG graph node in which the argument is contained.
-     *  Its time requirement is linear with the number of total nodes in */
+    /** Locate the CFG graph node in which the argument is contained. The CFG of the enclosing
+     *  declaration is checked first; all CFGs are searched only if it doesn't contain the node. */
     protected GraphNode<?> findNodeInMapByAST(Node astNode) {
+        Optional<GraphNode<?>> node = astNode.findAncestor(CallableDeclaration.class)
+                .map(cfgMap::get)
+                .flatMap(cfg -> cfg.findNodeByASTNode(astNode));
+        if (node.isPresent())
+            return node.get();
         return cfgMap.values().stream()
                 .map(cfg -> cfg.findNodeByASTNode(astNode))
                 .filter(Optional::isPresent)
@@ -142,17 +204,43 @@ public class DynamicTypeResolver {
      *  of the inner expression. */
     protected Stream<ResolvedType> resolveCast(CastExpr cast, GraphNode<?> container) {
         if (ASTUtils.isDownCast(cast))
-            return Stream.of(cast.getType().resolve());
+            return Stream.of(ResolutionCache.resolve(cast.getType()));
         return resolveStreamed(cast.getExpression(), container);
     }
 
     /** Returns all possible types that the given expression can be, by obtaining its static type
      *  and locating all subtypes in the class graph. */
     protected Stream<ResolvedType> anyTypeOf(Expression expression) {
-        ResolvedClassDeclaration type = expression.calculateResolvedType().asReferenceType()
+        ResolvedClassDeclaration type = ResolutionCache.calculateResolvedType(expression).asReferenceType()
                 .getTypeDeclaration().orElseThrow().asClass();
         return classGraph.subclassesOf(type).stream()
                 .map(TypeDeclaration::resolve)
                 .map(ASTUtils::resolvedTypeDeclarationToResolvedType);
     }
+
+    /** An expression and the node that contains it, compared by identity. */
+    protected static final class Key {
+        protected final Expression expression;
+        protected final GraphNode<?> container;
+
+        protected Key(Expression expression, GraphNode<?> container) {
+            this.expression = expression;
+            this.container = container;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return expression == key.expression && container == key.container;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(expression) + System.identityHashCode(container);
+        }
+    }
 }
@@ -1,18 +1,32 @@
 package slicing.graphs.sdg;
 
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.CallableDeclaration;
+import org.jgrapht.graph.AbstractGraph;
 import slicing.graphs.BackwardDataFlowAnalysis;
 import slicing.graphs.CallGraph;
+import slicing.nodes.GraphNode;
 import slicing.nodes.SyntheticNode;
 import slicing.nodes.exceptionsensitive.ExitNode;
 import slicing.nodes.io.FormalIONode;
 import slicing.nodes.io.OutputNode;
+import slicing.utils.ASTUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Stream;
 
 /**
  * Base class for generating and placing in an SDG the summary arcs.
+ * <br/>
+ * The formal-in nodes reached from each formal-out are computed once, concurrently for every declaration,
+ * and then stored in a map of summaries, which may be shared by the analyses of the same SDG so that
+ * declarations that haven't changed aren't traversed again. The strongly connected components of the
+ * call graph are then solved by levels, running the components of a level concurrently. A formal-out is
+ * only traversed again when a summary arc is placed on a node its previous traversal reached, and only
+ * the formal-outs whose formal-in nodes changed place their summary arcs again.
  * @param <ActualIn> The type of node for actual-in nodes.
  * @param <FormalOut> The type of node for formal-out nodes.
  * @param <FormalIn> The type of node for formal-in nodes.
@@ -20,36 +34,50 @@ import java.util.stream.Stream;
 public abstract class AbstractSummaryArcAnalyzer<ActualIn extends SyntheticNode<?>, FormalOut extends SyntheticNode<?>, FormalIn extends SyntheticNode<?>>
         extends BackwardDataFlowAnalysis<CallGraph.Vertex, CallGraph.Edge<?>, Map<FormalOut, Set<FormalIn>>> {
     protected final SDG sdg;
-    
-    protected AbstractSummaryArcAnalyzer(SDG sdg, CallGraph graph) {
-        super(graph);
-        this.sdg = sdg;
+    /** The formal-in nodes reached from each formal-out, which may be shared with other analyses of the same SDG. */
+    protected final Map<SyntheticNode<?>, Set<SyntheticNode<?>>> summaries;
+    /** The output nodes of each declaration, located once per analysis. */
+    protected final Map<Node, Set<FormalOut>> formalOutMap = ASTUtils.newIdentityHashMap();
+    /** The formal-outs whose last traversal reached each output node of a call. */
+    protected final Map<GraphNode<?>, Set<FormalOut>> readersMap = new ConcurrentHashMap<>();
+    /** The formal-outs of each vertex that must be traversed again, as new summary arcs may be reached from them. */
+    protected final Map<CallGraph.Vertex, Set<FormalOut>> staleMap = new ConcurrentHashMap<>();
+    /** The formal-outs of each vertex whose summary arcs haven't been placed on its calls. */
+    protected final Map<CallGraph.Vertex, Set<FormalOut>> unsavedMap = new ConcurrentHashMap<>();
+    /** Traversals read the SDG concurrently, summary arcs are added to it exclusively. */
+    protected final ReadWriteLock sdgLock = new ReentrantReadWriteLock();
+
+    protected AbstractSummaryArcAnalyzer(SDG sdg, AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph) {
+        this(sdg, graph, new ConcurrentHashMap<>());
     }
 
-    @Override
-    protected Map<FormalOut, Set<FormalIn>> compute(CallGraph.Vertex vertex, Set<CallGraph.Vertex> predecessors) {
-        saveDeclaration(vertex);
-        return initialValue(vertex);
+    /** @param summaries A thread-safe map of summaries, which must only contain entries that are still valid. */
+    protected AbstractSummaryArcAnalyzer(SDG sdg, AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph,
+                                         Map<SyntheticNode<?>, Set<SyntheticNode<?>>> summaries) {
+        super(graph, sdg.getSummaryParallelism() > 1 ? new ConcurrentHashMap<>() : new HashMap<>());
+        this.sdg = sdg;
+        this.summaries = summaries;
     }
 
     @Override
-    protected Map<FormalOut, Set<FormalIn>> initialValue(CallGraph.Vertex vertex) {
-        Map<FormalOut, Set<FormalIn>> value;
-        if (vertexDataMap.containsKey(vertex)) {
-            value = vertexDataMap.get(vertex);
-        } else {
-            value = new HashMap<>();
-            for (var formalOut : getFormalOutNodes(vertex.getDeclaration()))
-                value.put(formalOut, new HashSet<>());
+    public void analyze() {
+        assert !built;
+        indexNodes();
+        List<CallGraph.Vertex> vertices = new ArrayList<>(graph.vertexSet());
+        List<Map<FormalOut, Set<FormalIn>>> values = sdg.mapInParallel(vertices, this::initialValue);
+        for (int i = 0; i < vertices.size(); i++)
+            vertexDataMap.put(vertices.get(i), values.get(i));
+        for (List<Set<CallGraph.Vertex>> level : componentLevels()) {
+            sdg.mapInParallel(level, component -> {
+                analyzeComponent(component);
+                return null;
+            });
         }
-        value.replaceAll((key, oldValue) -> computeFormalIn(key));
-        return value;
+        built = true;
     }
 
-    /** Obtain all nodes that represent the output of a method declaration. These include formal-out,
-     *  return nodes and normal/exception exit nodes (for exception handling). */
-    protected Set<FormalOut> getFormalOutNodes(CallableDeclaration<?> declaration) {
-        Set<FormalOut> set = new HashSet<>();
+    /** Locates the nodes of the SDG that are searched for repeatedly, before the analysis starts. */
+    protected void indexNodes() {
         Stream.concat(
                 Stream.concat(
                         sdg.vertexSet().stream() // formal-out nodes
@@ -62,37 +90,137 @@ public abstract class AbstractSummaryArcAnalyzer<ActualIn extends SyntheticNode<
                 sdg.vertexSet().stream() // normal/exception exit nodes (for exception handling)
                         .filter(ExitNode.class::isInstance)
                         .map(ExitNode.class::cast))
-                // Only nodes that match the current declaration
-                .filter(node -> node.getAstNode() == declaration)
-                .forEach(e -> set.add((FormalOut) e));
-        return set;
+                .forEach(node -> formalOutMap.computeIfAbsent(node.getAstNode(), d -> new HashSet<>())
+                        .add((FormalOut) node));
     }
 
-    /** Given an output or formal-out node, locate the formal-in nodes it depends on.
-     *  This search should be performed intra-procedurally, the parent class will take
-     *  care of the rest of cases by adding summary arcs computed for other declarations. */
-    protected abstract Set<FormalIn> computeFormalIn(FormalOut formalOut);
+    @Override
+    protected void analyzeComponent(Set<CallGraph.Vertex> component) {
+        Deque<CallGraph.Vertex> workList = new ArrayDeque<>(component);
+        Set<CallGraph.Vertex> pending = new HashSet<>(component);
+        while (!workList.isEmpty()) {
+            CallGraph.Vertex vertex = workList.poll();
+            pending.remove(vertex);
+            try {
+                vertexDataMap.put(vertex, compute(vertex, Set.of()));
+                for (CallGraph.Vertex caller : saveDeclaration(vertex))
+                    if (component.contains(caller) && pending.add(caller))
+                        workList.add(caller);
+            } catch (IllegalArgumentException ignored) {}
+        }
+    }
+
+    /** Traverses again the stale formal-outs of the vertex. Those whose formal-in nodes change must place their summary arcs. */
+    @Override
+    protected Map<FormalOut, Set<FormalIn>> compute(CallGraph.Vertex vertex, Set<CallGraph.Vertex> predecessors) {
+        Map<FormalOut, Set<FormalIn>> value = vertexDataMap.get(vertex);
+        Set<FormalOut> stale = staleMap.remove(vertex);
+        if (stale == null)
+            return value;
+        for (FormalOut formalOut : stale) {
+            Set<FormalIn> formalIns = computeFormalIn(formalOut);
+            if (!formalIns.equals(value.get(formalOut))) {
+                value.put(formalOut, formalIns);
+                unsavedMap.computeIfAbsent(vertex, v -> ConcurrentHashMap.newKeySet()).add(formalOut);
+            }
+        }
+        return value;
+    }
 
-    /** Generate all summary arcs for a given call. Arc generation should be idempotent:
-     *  if this method is called repeatedly it should not create duplicate summary arcs. */
-    protected void saveDeclaration(CallGraph.Vertex vertex) {
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Map<FormalOut, Set<FormalIn>> initialValue(CallGraph.Vertex vertex) {
+        Map<FormalOut, Set<FormalIn>> value = new HashMap<>();
+        for (var formalOut : getFormalOutNodes(vertex.getDeclaration())) {
+            Set<SyntheticNode<?>> summary = summaries.get(formalOut);
+            value.put(formalOut, summary != null ? (Set<FormalIn>) (Set<?>) summary : computeFormalIn(formalOut));
+        }
+        Set<FormalOut> unsaved = ConcurrentHashMap.newKeySet();
+        unsaved.addAll(value.keySet());
+        unsavedMap.put(vertex, unsaved);
+        return value;
+    }
+
+    /** Obtain all nodes that represent the output of a method declaration. These include formal-out,
+     *  return nodes and normal/exception exit nodes (for exception handling). */
+    protected Set<FormalOut> getFormalOutNodes(CallableDeclaration<?> declaration) {
+        return new HashSet<>(formalOutMap.getOrDefault(declaration, Set.of()));
+    }
+
+    /** Given an output or formal-out node, locate the formal-in nodes it depends on, with an intraprocedural
+     *  traversal. The parent class will take care of the rest of cases by adding summary arcs computed for
+     *  other declarations. The output nodes of calls reached are recorded, and the result is stored as summary. */
+    @SuppressWarnings("unchecked")
+    protected Set<FormalIn> computeFormalIn(FormalOut formalOut) {
+        Set<FormalIn> result = new HashSet<>();
+        sdgLock.readLock().lock();
+        try {
+            for (GraphNode<?> node : sdg.createSlicingAlgorithm().traverseProcedure(formalOut).getGraphNodes()) {
+                if (isFormalIn(node))
+                    result.add((FormalIn) node);
+                else if (isOutputNode(node))
+                    readersMap.computeIfAbsent(node, n -> ConcurrentHashMap.newKeySet()).add(formalOut);
+            }
+        } finally {
+            sdgLock.readLock().unlock();
+        }
+        summaries.put(formalOut, (Set<SyntheticNode<?>>) (Set<?>) result);
+        return result;
+    }
+
+    /** Whether the given node is a formal-in node, which may be the source of a summary arc at the calls. */
+    protected abstract boolean isFormalIn(GraphNode<?> node);
+
+    /** Whether the given node may be the target of a summary arc, i.e., it may be found by
+     *  {@link #findOutputNode(CallGraph.Edge, SyntheticNode)}. */
+    protected abstract boolean isOutputNode(GraphNode<?> node);
+
+    /** Place the summary arcs of the given declaration on all its calls. Arc generation is idempotent:
+     *  only the formal-outs that haven't been saved are considered, and duplicate arcs aren't created.
+     *  @return The callers with formal-outs that must be traversed again. */
+    protected Set<CallGraph.Vertex> saveDeclaration(CallGraph.Vertex vertex) {
+        Set<FormalOut> unsaved = unsavedMap.remove(vertex);
+        if (unsaved == null || unsaved.isEmpty())
+            return Set.of();
         var result = vertexDataMap.get(vertex);
-        for (CallGraph.Edge<?> edge : graph.incomingEdgesOf(vertex)) {
-            for (var entry : result.entrySet()) {
-                Collection<? extends SyntheticNode<?>> actualOuts = findOutputNode(edge, entry.getKey());
-                if (actualOuts.isEmpty())
-                    continue;
-                for (FormalIn formalIn : entry.getValue()) {
-                    Collection<? extends ActualIn> actualIns = findActualIn(edge, formalIn);
-                    if (actualIns.isEmpty())
+        Set<CallGraph.Vertex> affected = new HashSet<>();
+        sdgLock.writeLock().lock();
+        try {
+            for (CallGraph.Edge<?> edge : graph.incomingEdgesOf(vertex)) {
+                CallGraph.Vertex caller = graph.getEdgeSource(edge);
+                for (FormalOut formalOut : unsaved) {
+                    Collection<? extends SyntheticNode<?>> actualOuts = findOutputNode(edge, formalOut);
+                    if (actualOuts.isEmpty())
                         continue;
-                    for (SyntheticNode<?> actualOut : actualOuts)
-                        for (ActualIn actualIn : actualIns)
-                            if (!sdg.containsEdge(actualIn, actualOut))
-                                sdg.addSummaryArc(actualIn, actualOut);
+                    for (FormalIn formalIn : result.get(formalOut)) {
+                        Collection<? extends ActualIn> actualIns = findActualIn(edge, formalIn);
+                        if (actualIns.isEmpty())
+                            continue;
+                        for (SyntheticNode<?> actualOut : actualOuts) {
+                            for (ActualIn actualIn : actualIns) {
+                                if (!sdg.containsEdge(actualIn, actualOut)) {
+                                    sdg.addSummaryArc(actualIn, actualOut);
+                                    if (markReadersStale(caller, actualOut))
+                                        affected.add(caller);
+                                }
+                            }
+                        }
+                    }
                 }
             }
+        } finally {
+            sdgLock.writeLock().unlock();
         }
+        return affected;
+    }
+
+    /** Marks the formal-outs of the caller that reached the given output node as stale. */
+    protected boolean markReadersStale(CallGraph.Vertex caller, SyntheticNode<?> actualOut) {
+        Set<FormalOut> readers = readersMap.get(actualOut);
+        if (readers == null || readers.isEmpty())
+            return false;
+        staleMap.computeIfAbsent(caller, v -> ConcurrentHashMap.newKeySet()).addAll(readers);
+        return true;
     }
 
     /** Find the actual-in that represents the given formal-in in the given call.
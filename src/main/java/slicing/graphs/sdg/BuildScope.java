@@ -0,0 +1,76 @@
+package slicing.graphs.sdg;
+
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import slicing.graphs.CallGraph;
+import slicing.utils.ASTUtils;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Limits the construction of an {@link SDG} to the neighbourhood of some focal declarations:
+ * the callers of the focal declarations up to a given depth, plus every declaration that
+ * those may call (up to another depth). Declarations outside the scope get no CFG, data
+ * flow analysis, PDG or summary arcs.
+ * @see SDG#setScope(BuildScope)
+ */
+public class BuildScope {
+    /** Depth value that doesn't limit the search. */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+    /** Direct callers are enough to obtain usage examples of a focal declaration. */
+    public static final int DEFAULT_CALLER_DEPTH = 1;
+
+    protected final Predicate<CallableDeclaration<?>> focalFilter;
+    protected final int callerDepth;
+    protected final int calleeDepth;
+
+    /**
+     * @param focalFilter Selects the focal declarations.
+     * @param callerDepth How many levels of callers of the focal declarations are included.
+     * @param calleeDepth How many levels of callees of the focal declarations and their callers are included.
+     *                    Use {@link #UNBOUNDED} to keep the interprocedural analyses complete.
+     */
+    public BuildScope(Predicate<CallableDeclaration<?>> focalFilter, int callerDepth, int calleeDepth) {
+        this.focalFilter = Objects.requireNonNull(focalFilter);
+        this.callerDepth = callerDepth;
+        this.calleeDepth = calleeDepth;
+    }
+
+    /** A scope whose focal declarations are those contained in the given types. Each type
+     *  may be given by its fully qualified or simple name. */
+    public static BuildScope ofTypes(Collection<String> typeNames) {
+        Set<String> names = new HashSet<>(typeNames);
+        return new BuildScope(decl -> {
+            Optional<TypeDeclaration<?>> type = decl.findAncestor(TypeDeclaration.class).map(t -> (TypeDeclaration<?>) t);
+            return type.isPresent() && (names.contains(type.get().getNameAsString())
+                    || type.get().getFullyQualifiedName().map(names::contains).orElse(false));
+        }, DEFAULT_CALLER_DEPTH, UNBOUNDED);
+    }
+
+    /** Computes the declarations that belong to this scope, according to the given call graph. */
+    public Set<CallableDeclaration<?>> compute(CallGraph callGraph) {
+        Set<CallableDeclaration<?>> focal = ASTUtils.newIdentityHashSet();
+        for (CallGraph.Vertex vertex : callGraph.vertexSet())
+            if (focalFilter.test(vertex.getDeclaration()))
+                focal.add(vertex.getDeclaration());
+        Set<CallableDeclaration<?>> callers = expand(callGraph, focal, callerDepth, false);
+        return expand(callGraph, callers, calleeDepth, true);
+    }
+
+    /** Breadth-first search from the given declarations, following calls forward or backward. */
+    protected Set<CallableDeclaration<?>> expand(CallGraph callGraph, Set<CallableDeclaration<?>> start, int depth, boolean forward) {
+        Set<CallableDeclaration<?>> visited = ASTUtils.newIdentityHashSet();
+        visited.addAll(start);
+        Collection<CallableDeclaration<?>> frontier = start;
+        for (int level = 0; level < depth && !frontier.isEmpty(); level++) {
+            List<CallableDeclaration<?>> next = new LinkedList<>();
+            for (CallableDeclaration<?> decl : frontier)
+                (forward ? callGraph.calleesOf(decl) : callGraph.callersOf(decl))
+                        .filter(visited::add)
+                        .forEach(next::add);
+            frontier = next;
+        }
+        return visited;
+    }
+}
@@ -13,6 +13,8 @@ import slicing.nodes.io.FormalIONode;
 import slicing.nodes.io.OutputNode;
 import slicing.utils.ASTUtils;
 
+import java.util.Collection;
+
 /** Adds interprocedural arcs between the 'PDG components' of an SDG.
  * Arcs generated include {@link ParameterInOutArc parameter input/output} and
  * {@link CallArc call} arcs. */
@@ -25,7 +27,12 @@ public class CallConnector {
 
     /** Connects all calls found in the given call graph, placing the arcs in the SDG. */
     public void connectAllCalls(CallGraph callGraph) {
-        sdg.vertexSet().stream()
+        connectCalls(sdg.vertexSet(), callGraph);
+    }
+
+    /** Connects the calls among the given nodes, placing the arcs in the SDG. */
+    public void connectCalls(Collection<GraphNode<?>> nodes, CallGraph callGraph) {
+        nodes.stream()
                 .filter(CallNode.class::isInstance)
                 .map(CallNode.class::cast)
                 .forEach(node -> {
@@ -3,6 +3,7 @@ package slicing.graphs.sdg;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
+import org.jgrapht.graph.AbstractGraph;
 import slicing.graphs.BackwardDataFlowAnalysis;
 import slicing.graphs.CallGraph;
 import slicing.graphs.cfg.CFG;
@@ -26,8 +27,12 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
     protected final Map<CallableDeclaration<?>, CFG> cfgMap;
     /** A map from vertex and action to its corresponding stored action, to avoid generating duplicate nodes. */
     protected final Map<CallGraph.Vertex, Map<A, StoredAction>> actionStoredMap = new HashMap<>();
+    /** Interned action names: each distinct name is assigned a bit index. */
+    protected final Map<String, Integer> actionNameIndex = new HashMap<>();
+    /** The set of names contained in each value computed, as a bitset, for fast comparisons. */
+    protected final Map<Set<A>, BitSet> nameSignatures = ASTUtils.newIdentityHashMap();
 
-    protected InterproceduralActionFinder(CallGraph callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
+    protected InterproceduralActionFinder(AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
         super(callGraph);
         this.cfgMap = cfgMap;
     }
@@ -42,6 +47,13 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
         graph.vertexSet().forEach(this::saveDeclarationFormalNodes);
     }
 
+    /** Performs the analysis, but only saves the formal nodes of the given vertices. The rest of vertices
+     *  are expected to have their formal nodes already, and only provide actual nodes to their callers. */
+    public void save(Collection<CallGraph.Vertex> formalVertices) {
+        if (!built) analyze();
+        formalVertices.forEach(this::saveDeclarationFormalNodes);
+    }
+
     /** Obtains the StoredAction object with information on which actions have been stored. */
     protected StoredAction getStored(CallGraph.Vertex vertex, A action) {
         return actionStoredMap.get(vertex).get(action);
@@ -137,7 +149,8 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
                 // We skip local variables, as those can't be interprocedural
                 .filter(Predicate.not(VariableAction::isLocalVariable));
         Stream<A> filteredStream = mapAndFilterActionStream(actionStream, cfg);
-        Set<A> set = new HashSet<>();
+        // Kept in order, as the first field found names the actual-out node of 'this' in each call
+        Set<A> set = new LinkedHashSet<>();
         for (Iterator<A> it = filteredStream.iterator(); it.hasNext(); ) {
             A a = it.next();
             if (set.contains(a)) {
@@ -158,8 +171,15 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
     protected boolean dataMatch(Set<A> oldData, Set<A> newData) {
         if (oldData == newData)
             return true;
-        if (oldData.size() != newData.size())
-            return false;
+        boolean match = oldData.size() == newData.size() && nameSignature(oldData).equals(nameSignature(newData))
+                && objectTreesMatch(oldData, newData);
+        // Only the value that is kept in the vertex data map will be compared again
+        nameSignatures.remove(match ? newData : oldData);
+        return match;
+    }
+
+    /** Compares the object trees of two sets of actions with the same names. */
+    protected boolean objectTreesMatch(Set<A> oldData, Set<A> newData) {
         HashMap<String, A> map = new HashMap<>();
         for (A a : oldData)
             map.put(a.getName(), a);
@@ -169,6 +189,16 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
         return true;
     }
 
+    /** The names of the actions in the given set, interned as a bitset. */
+    protected BitSet nameSignature(Set<A> actions) {
+        return nameSignatures.computeIfAbsent(actions, set -> {
+            BitSet bitSet = new BitSet(actionNameIndex.size());
+            for (A a : set)
+                bitSet.set(actionNameIndex.computeIfAbsent(a.getName(), name -> actionNameIndex.size()));
+            return bitSet;
+        });
+    }
+
     // ===========================================================
     // ========================= SUBCLASSES ======================
     // ===========================================================
@@ -5,6 +5,7 @@ import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.expr.SuperExpr;
 import com.github.javaparser.ast.expr.ThisExpr;
+import org.jgrapht.graph.AbstractGraph;
 import slicing.graphs.CallGraph;
 import slicing.graphs.cfg.CFG;
 import slicing.nodes.GraphNode;
@@ -22,7 +23,7 @@ import java.util.stream.Stream;
 
 /** An interprocedural definition finder, which adds the associated actions to formal and actual nodes in the CFGs. */
 public class InterproceduralDefinitionFinder extends InterproceduralActionFinder<Definition> {
-    public InterproceduralDefinitionFinder(CallGraph callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
+    public InterproceduralDefinitionFinder(AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
         super(callGraph, cfgMap);
     }
 
@@ -5,6 +5,7 @@ import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.resolution.Resolvable;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
+import org.jgrapht.graph.AbstractGraph;
 import slicing.graphs.CallGraph;
 import slicing.graphs.ExpressionObjectTreeFinder;
 import slicing.graphs.cfg.CFG;
@@ -24,7 +25,7 @@ import java.util.stream.Stream;
 
 /** An interprocedural usage finder, which adds the associated actions to formal and actual nodes in the CFGs. */
 public class InterproceduralUsageFinder extends InterproceduralActionFinder<Usage> {
-    public InterproceduralUsageFinder(CallGraph callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
+    public InterproceduralUsageFinder(AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
         super(callGraph, cfgMap);
     }
 
@@ -1,16 +1,23 @@
 package slicing.graphs.sdg;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.stmt.TryStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import lombok.Getter;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.AsSubgraph;
 import slicing.arcs.pdg.ControlDependencyArc;
 import slicing.arcs.pdg.DataDependencyArc;
+import slicing.arcs.pdg.StructuralArc;
 import slicing.arcs.sdg.CallArc;
 import slicing.arcs.sdg.InterproceduralArc;
 import slicing.arcs.sdg.ParameterInOutArc;
@@ -23,13 +30,19 @@ import slicing.graphs.cfg.CFG;
 import slicing.graphs.pdg.PDG;
 import slicing.nodes.GraphNode;
 import slicing.nodes.SyntheticNode;
+import slicing.nodes.oo.MemberNode;
 import slicing.slicing.*;
 import slicing.utils.ASTUtils;
+import slicing.utils.AnalysisContext;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Set;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * The <b>System Dependence Graph</b> represents the statements of a program in
@@ -39,6 +52,7 @@ import java.util.Set;
  * The variations of the SDG are represented as child types.
  * <ol>
  *      <li>Build a graph: {@link #build(NodeList)}</li>
+ *      <li>Optionally, update it after some files change: {@link #update(NodeList)}</li>
  *      <li>Slice a graph: {@link #slice(SlicingCriterion)}</li>
  *      <li>Obtain the sliced Java: {@link Slice#toAst()}</li>
  * </ol>
@@ -51,6 +65,20 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
 
     protected boolean built = false;
     protected NodeList<CompilationUnit> compilationUnits;
+    /** If set, only the declarations in this scope are analysed. */
+    @Getter
+    protected BuildScope scope;
+    /** Number of threads used to compute summary arcs. */
+    @Getter
+    protected int summaryParallelism = 1;
+    /** The builder that populated this graph, kept to {@link #update(NodeList) update} it. */
+    protected Builder builder;
+    /** The hash of the source file of each compilation unit used to create this graph. */
+    protected final Map<Path, String> sourceHashes = new HashMap<>();
+    /** The analysis context in which this graph was created, whose class graph and
+     *  id allocation are used to build it, from any thread. */
+    @Getter
+    protected final AnalysisContext analysisContext = AnalysisContext.current();
 
     /** Obtain the list of compilation units used to create this graph. */
     public NodeList<CompilationUnit> getCompilationUnits() {
@@ -69,17 +97,199 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
         return createSlicingAlgorithm().traverse(slicingCriterionNodes);
     }
 
+    /** Slices this graph with respect to each of the given criteria, in a single run of the slicing
+     *  algorithm that shares work among criteria. Criteria that cannot be located are left out.
+     *  To slice from several threads at once, locate the criteria first with {@link #locateAll(Collection)},
+     *  and then slice them with {@link #sliceLocated(Map, SliceBudget)}. */
+    public Map<SlicingCriterion, Slice> sliceAll(Collection<? extends SlicingCriterion> slicingCriteria) {
+        return sliceAll(slicingCriteria, SliceBudget.UNLIMITED);
+    }
+
+    /** Same as {@link #sliceAll(Collection)}, but slices that exceed the given budget are abandoned,
+     *  and {@link Slice#isBudgetExceeded() marked as such}. */
+    public Map<SlicingCriterion, Slice> sliceAll(Collection<? extends SlicingCriterion> slicingCriteria, SliceBudget budget) {
+        return sliceLocated(locateAll(slicingCriteria), budget);
+    }
+
+    /** Locates the nodes of each of the given criteria, in the same order. Criteria that cannot be located
+     *  are left out. Locating a criterion may resolve symbols, so it must not be performed concurrently. */
+    public Map<SlicingCriterion, Set<GraphNode<?>>> locateAll(Collection<? extends SlicingCriterion> slicingCriteria) {
+        Map<SlicingCriterion, Set<GraphNode<?>>> located = new LinkedHashMap<>();
+        for (SlicingCriterion slicingCriterion : slicingCriteria) {
+            try {
+                located.put(slicingCriterion, slicingCriterion.findNode(this));
+            } catch (NoSuchElementException ignored) {}
+        }
+        return located;
+    }
+
+    /** Same as {@link #sliceAll(Collection, SliceBudget)}, with criteria that have already been
+     *  {@link #locateAll(Collection) located}. It only reads the graph, and may run concurrently. */
+    public Map<SlicingCriterion, Slice> sliceLocated(Map<SlicingCriterion, Set<GraphNode<?>>> located, SliceBudget budget) {
+        SlicingAlgorithm algorithm = createSlicingAlgorithm();
+        algorithm.setBudget(budget);
+        List<Slice> slices = algorithm.traverseAll(new ArrayList<>(located.values()));
+        Map<SlicingCriterion, Slice> sliceMap = new LinkedHashMap<>();
+        int i = 0;
+        for (SlicingCriterion slicingCriterion : located.keySet())
+            sliceMap.put(slicingCriterion, slices.get(i++));
+        return sliceMap;
+    }
+
     protected SlicingAlgorithm createSlicingAlgorithm() {
         return new ClassicSlicingAlgorithm(this);
     }
 
     @Override
     public void build(NodeList<CompilationUnit> nodeList) {
-        var builder = createBuilder();
-        builder.build(nodeList);
+        builder = createBuilder();
+        analysisContext.run(() -> builder.build(nodeList));
         this.callGraph = builder.callGraph;
         compilationUnits = nodeList;
         built = true;
+        sourceHashes.clear();
+        sourceHashes.putAll(hashSources(nodeList));
+        freeze();
+    }
+
+    /**
+     * Updates this graph to match a new version of the compilation units used to build it. A compilation
+     * unit whose source file has the same path and contents as before is considered unchanged, and its
+     * previous AST is kept in {@link #getCompilationUnits()}. The declarations in changed, added and removed
+     * files, and every declaration that may call them, are rebuilt: their nodes are removed, their CFGs and
+     * PDGs built again, and the interprocedural analyses run only on them and their direct callees.
+     * The rest of the graph is kept as is.
+     * <br/>
+     * The object trees of every declaration come from the fields of the types in the {@link ClassGraph},
+     * so the graph is built again if the changed files add, remove or alter the name, type parameters,
+     * supertypes or fields of any type. Graphs that weren't built, or were built with a
+     * {@link #setScope(BuildScope) scope}, are also built again, as the scope depends on the call graph.
+     */
+    public void update(NodeList<CompilationUnit> nodeList) {
+        // The throws clauses of changed declarations may differ, and the resolutions of replaced ASTs,
+        // or of the new copies of unchanged files, would keep them alive
+        analysisContext.getExceptionTypeCache().clear();
+        analysisContext.getResolutionCache().clear();
+        if (!built || scope != null) {
+            clear();
+            build(nodeList);
+            return;
+        }
+        Map<Path, String> newHashes = hashSources(nodeList);
+        Map<Path, CompilationUnit> previous = new HashMap<>();
+        for (CompilationUnit cu : compilationUnits)
+            cu.getStorage().ifPresent(storage -> previous.put(storage.getPath(), cu));
+        NodeList<CompilationUnit> merged = new NodeList<>();
+        Set<CompilationUnit> removedCus = ASTUtils.newIdentityHashSet();
+        Set<CompilationUnit> addedCus = ASTUtils.newIdentityHashSet();
+        removedCus.addAll(compilationUnits);
+        for (CompilationUnit cu : nodeList) {
+            Path path = cu.getStorage().map(CompilationUnit.Storage::getPath).orElse(null);
+            CompilationUnit old = previous.get(path);
+            if (old != null && newHashes.containsKey(path) && newHashes.get(path).equals(sourceHashes.get(path))) {
+                merged.add(old);
+                removedCus.remove(old);
+            } else {
+                merged.add(cu);
+                addedCus.add(cu);
+            }
+        }
+        if (!typeStructure(removedCus).equals(typeStructure(addedCus))) {
+            clear();
+            build(nodeList);
+            return;
+        }
+        if (!removedCus.isEmpty() || !addedCus.isEmpty()) {
+            analysisContext.run(() -> builder.update(merged, removedCus, addedCus));
+            this.callGraph = builder.callGraph;
+        }
+        compilationUnits = merged;
+        sourceHashes.clear();
+        sourceHashes.putAll(newHashes);
+        freeze();
+    }
+
+    /** Describes the types declared in the given compilation units, as far as the object trees of the
+     *  {@link ClassGraph} are concerned: their names, type parameters, supertypes and fields, sorted. */
+    protected static List<String> typeStructure(Collection<CompilationUnit> cus) {
+        List<String> types = new ArrayList<>();
+        for (CompilationUnit cu : cus) {
+            for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+                StringBuilder description = new StringBuilder(type.getFullyQualifiedName().orElse(type.getNameAsString()));
+                if (type.isClassOrInterfaceDeclaration()) {
+                    ClassOrInterfaceDeclaration clazz = type.asClassOrInterfaceDeclaration();
+                    description.append(clazz.isInterface() ? " interface" : " class")
+                            .append(clazz.getTypeParameters())
+                            .append(" extends ").append(clazz.getExtendedTypes())
+                            .append(" implements ").append(clazz.getImplementedTypes());
+                } else {
+                    description.append(' ').append(type.getClass().getSimpleName());
+                }
+                for (FieldDeclaration field : type.getFields())
+                    for (VariableDeclarator variable : field.getVariables())
+                        description.append(field.isStatic() ? "; static " : "; ")
+                                .append(variable.getType()).append(' ').append(variable.getName());
+                types.add(description.toString());
+            }
+        }
+        Collections.sort(types);
+        return types;
+    }
+
+    /** The hash of the source file of each compilation unit. Those without a readable file are left out,
+     *  and will be considered changed by {@link #update(NodeList)}. */
+    protected static Map<Path, String> hashSources(NodeList<CompilationUnit> nodeList) {
+        Map<Path, String> hashes = new HashMap<>();
+        for (CompilationUnit cu : nodeList) {
+            try {
+                SliceCache.sourceHash(cu).ifPresent(hash -> hashes.put(cu.getStorage().get().getPath(), hash));
+            } catch (IOException ignored) {}
+        }
+        return hashes;
+    }
+
+    /** Removes every node and CFG from this graph, so that it may be built again. */
+    protected void clear() {
+        removeAllVertices(new ArrayList<>(vertexSet()));
+        cfgMap.clear();
+        callGraph = null;
+        built = false;
+    }
+
+    /** Restrict the analysis performed by {@link #build(NodeList)} to the given scope.
+     *  A null scope analyses every declaration. */
+    public void setScope(BuildScope scope) {
+        assert !built;
+        this.scope = scope;
+    }
+
+    /** Compute the summary arcs of different declarations concurrently, with the given number of threads.
+     *  The resulting graph is the same as the one built sequentially. */
+    public void setSummaryParallelism(int summaryParallelism) {
+        assert !built;
+        this.summaryParallelism = Math.max(1, summaryParallelism);
+    }
+
+    /** Applies the task to every input, using up to {@link #summaryParallelism} threads, which work in
+     *  this graph's {@link #analysisContext}. The results are returned in the same order as the inputs.
+     *  The task must not resolve symbols. */
+    protected <T, R> List<R> mapInParallel(List<T> inputs, Function<T, R> task) {
+        if (summaryParallelism <= 1 || inputs.size() < 2)
+            return inputs.stream().map(task).collect(Collectors.toList());
+        ForkJoinPool pool = new ForkJoinPool(summaryParallelism);
+        Function<T, R> contextTask = input -> analysisContext.call(() -> task.apply(input));
+        try {
+            return pool.submit(() -> inputs.parallelStream().map(contextTask).collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the SDG", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
     }
 
     /** Create a new SDG builder. Child classes that wish to alter the creation of the graph
@@ -125,11 +335,22 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
      *  By default, it uses {@link PDG}s and {@link CFG}s. */
     public class Builder {
         protected CallGraph callGraph;
+        /** The declarations for which a CFG is built, in the order in which they appear in the source code. */
+        protected final List<CallableDeclaration<?>> declarations = new ArrayList<>();
+        /** The formal-in nodes reached from each formal-out node, kept to be reused by {@link #update}.
+         *  @see AbstractSummaryArcAnalyzer */
+        protected final Map<SyntheticNode<?>, Set<SyntheticNode<?>>> summaries = new ConcurrentHashMap<>();
+        /** The declarations in the {@link #scope}, or null if every declaration is analysed. */
+        protected Set<CallableDeclaration<?>> inScope;
+        /** The call graph from which {@link #inScope} was computed, before any CFG was built. */
+        protected CallGraph scopeCallGraph;
 
         public void build(NodeList<CompilationUnit> nodeList) {
             // See creation strategy at http://kaz2.dsic.upv.es:3000/Fzg46cQvT1GzHQG9hFnP1g#Using-data-flow-in-the-SDG
             // This ordering cannot be altered, as each step requires elements from the previous one.
             createClassGraph(nodeList); // 0
+            if (scope != null)
+                computeScope(nodeList); // 0.1
             buildCFGs(nodeList);        // 1
             createCallGraph(nodeList);  // 2
             dataFlowAnalysis();         // 3
@@ -138,9 +359,147 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
             createSummaryArcs();        // 6
         }
 
-        /** Build a CFG per declaration found in the list of compilation units. */
+        /**
+         * Updates the graph, replacing the given compilation units. The declarations in them, plus every
+         * declaration that may transitively call them (before or after the change), are rebuilt.
+         * @param nodeList The complete list of compilation units, after the change.
+         * @param removedCus The compilation units that were replaced or removed, whose nodes must be removed.
+         * @param addedCus The compilation units that were added or replace others, whose nodes must be built.
+         */
+        public void update(NodeList<CompilationUnit> nodeList, Set<CompilationUnit> removedCus, Set<CompilationUnit> addedCus) {
+            // 1. Remove the declarations of the old files and those that could call them
+            Set<CallableDeclaration<?>> removedDecls = ASTUtils.newIdentityHashSet();
+            for (CallableDeclaration<?> declaration : declarations)
+                if (declaration.findCompilationUnit().filter(removedCus::contains).isPresent())
+                    removedDecls.add(declaration);
+            Set<CallableDeclaration<?>> stale = withTransitiveCallers(callGraph, removedDecls);
+            removeNodes(stale, removedCus);
+            declarations.removeIf(removedDecls::contains);
+            cfgMap.keySet().removeIf(stale::contains);
+            Set<GraphNode<?>> previousNodes = new HashSet<>(vertexSet());
+            // 2. Build the class graph, and the CFGs of the new files and the callers that were kept
+            updateClassGraph(nodeList, addedCus);
+            List<CallableDeclaration<?>> newDecls = collectDeclarations(addedCus);
+            declarations.addAll(newDecls);
+            Set<CallableDeclaration<?>> rebuiltSet = ASTUtils.newIdentityHashSet();
+            rebuiltSet.addAll(stale);
+            rebuiltSet.addAll(newDecls);
+            buildCFGs(filterDeclarations(rebuiltSet));
+            createCallGraph(nodeList);
+            // 3. The new declarations may be called from declarations that were kept (e.g., through new overrides)
+            Set<CallableDeclaration<?>> extra = withTransitiveCallers(callGraph, filterDeclarations(rebuiltSet));
+            extra.removeAll(rebuiltSet);
+            if (!extra.isEmpty()) {
+                removeNodes(extra, Set.of());
+                cfgMap.keySet().removeIf(extra::contains);
+                buildCFGs(filterDeclarations(extra));
+                rebuiltSet.addAll(extra);
+                createCallGraph(nodeList);
+            }
+            // 4. Interprocedural analyses, restricted to the rebuilt declarations and their callees
+            List<CallableDeclaration<?>> rebuilt = filterDeclarations(rebuiltSet);
+            Set<CallGraph.Vertex> rebuiltVertices = new HashSet<>();
+            for (CallableDeclaration<?> declaration : rebuilt)
+                callGraph.findVertex(declaration).ifPresent(rebuiltVertices::add);
+            AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> subgraph = restrictCallGraph(rebuiltVertices);
+            dataFlowAnalysis(subgraph, rebuiltVertices);
+            buildAndCopyPDGs(rebuilt);
+            Set<GraphNode<?>> newNodes = new HashSet<>(vertexSet());
+            newNodes.removeAll(previousNodes);
+            connectCalls(newNodes);
+            // The summaries of the declarations that were kept are still valid
+            summaries.keySet().removeIf(node -> !containsVertex(node));
+            createSummaryArcAnalyzer(subgraph).analyze();
+        }
+
+        /** The elements of {@link #declarations} contained in the given set, in order. */
+        protected List<CallableDeclaration<?>> filterDeclarations(Set<CallableDeclaration<?>> set) {
+            List<CallableDeclaration<?>> list = new ArrayList<>();
+            for (CallableDeclaration<?> declaration : declarations)
+                if (set.contains(declaration))
+                    list.add(declaration);
+            return list;
+        }
+
+        /** The given declarations plus every declaration that may transitively call them, according to a call graph. */
+        protected Set<CallableDeclaration<?>> withTransitiveCallers(CallGraph graph, Collection<CallableDeclaration<?>> start) {
+            Set<CallableDeclaration<?>> result = ASTUtils.newIdentityHashSet();
+            Deque<CallableDeclaration<?>> pending = new ArrayDeque<>(start);
+            while (!pending.isEmpty()) {
+                CallableDeclaration<?> declaration = pending.pop();
+                if (result.add(declaration))
+                    graph.findVertex(declaration).ifPresent(vertex ->
+                            graph.incomingEdgesOf(vertex).forEach(edge -> pending.push(edge.getSource())));
+            }
+            return result;
+        }
+
+        /** Removes from the SDG every node that belongs to the given declarations or compilation units.
+         *  Member nodes belong to the same declaration as the root of their object tree. Roots without
+         *  a parent (e.g., those of type nodes) belong to the node that has a structural arc to them. */
+        protected void removeNodes(Set<CallableDeclaration<?>> declarations, Set<CompilationUnit> cus) {
+            List<GraphNode<?>> toRemove = new LinkedList<>();
+            for (GraphNode<?> node : vertexSet()) {
+                GraphNode<?> owner = node;
+                while (owner instanceof MemberNode) {
+                    GraphNode<?> parent = ((MemberNode) owner).getParent();
+                    if (parent == null)
+                        parent = incomingEdgesOf(owner).stream()
+                                .filter(StructuralArc.class::isInstance)
+                                .map(arc -> getEdgeSource(arc))
+                                .findFirst().orElse(null);
+                    if (parent == null)
+                        break;
+                    owner = parent;
+                }
+                Node astNode = owner.getAstNode();
+                if (astNode == null)
+                    continue;
+                Optional<CallableDeclaration<?>> declaration = astNode instanceof CallableDeclaration ?
+                        Optional.of((CallableDeclaration<?>) astNode) :
+                        astNode.findAncestor(CallableDeclaration.class).map(d -> (CallableDeclaration<?>) d);
+                if (declaration.filter(declarations::contains).isPresent()
+                        || astNode.findCompilationUnit().filter(cus::contains).isPresent())
+                    toRemove.add(node);
+            }
+            removeAllVertices(toRemove);
+        }
+
+        /** A view of the call graph with the given vertices, their direct callees and the calls they perform. */
+        protected AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> restrictCallGraph(Set<CallGraph.Vertex> vertices) {
+            Set<CallGraph.Vertex> subVertices = new HashSet<>(vertices);
+            Set<CallGraph.Edge<?>> subEdges = new HashSet<>();
+            for (CallGraph.Vertex vertex : vertices) {
+                for (CallGraph.Edge<?> edge : callGraph.outgoingEdgesOf(vertex)) {
+                    subEdges.add(edge);
+                    subVertices.add(callGraph.getEdgeTarget(edge));
+                }
+            }
+            return new AsSubgraph<>(callGraph, subVertices, subEdges);
+        }
+
+        /** Build a CFG per declaration found in the list of compilation units, if it is {@link #inScope}. */
         protected void buildCFGs(NodeList<CompilationUnit> nodeList) {
-            nodeList.accept(new VoidVisitorAdapter<Void>() {
+            for (CallableDeclaration<?> declaration : collectDeclarations(nodeList))
+                if (inScope == null || inScope.contains(declaration))
+                    declarations.add(declaration);
+            buildCFGs(declarations);
+        }
+
+        /** Build a CFG for each of the given declarations, and place them in the CFG map. They are built one
+         *  at a time: building a CFG resolves symbols, and JavaParser's symbol solver can't be used concurrently. */
+        protected void buildCFGs(List<CallableDeclaration<?>> declarations) {
+            for (CallableDeclaration<?> declaration : declarations) {
+                CFG cfg = createCFG();
+                buildCFG(declaration, cfg);
+                cfgMap.put(declaration, cfg);
+            }
+        }
+
+        /** Locate the declarations for which a CFG can be built, in the order in which they appear in the source code. */
+        protected List<CallableDeclaration<?>> collectDeclarations(Collection<CompilationUnit> cus) {
+            List<CallableDeclaration<?>> declarations = new ArrayList<>();
+            VoidVisitorAdapter<Void> visitor = new VoidVisitorAdapter<>() {
                 @Override
                 public void visit(MethodDeclaration n, Void arg) {
                     boolean isInInterface = n.findAncestor(ClassOrInterfaceDeclaration.class)
@@ -151,9 +510,7 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
                     }
                     if (n.isAbstract() || isInInterface)
                         return; // Allow abstract methods
-                    CFG cfg = createCFG();
-                    buildCFG(n, cfg);
-                    cfgMap.put(n, cfg);
+                    declarations.add(n);
                     super.visit(n, arg);
                 }
 
@@ -164,12 +521,13 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
                     isInInterface = isInInterface && !n.isStatic();
                     if (n.isAbstract() || isInInterface)
                         return; // Allow abstract methods
-                    CFG cfg = createCFG();
-                    buildCFG(n, cfg);
-                    cfgMap.put(n, cfg);
+                    declarations.add(n);
                     super.visit(n, arg);
                 }
-            }, null);
+            };
+            for (CompilationUnit cu : cus)
+                cu.accept(visitor, null);
+            return declarations;
         }
 
         private boolean containTryWithResources(CallableDeclaration<?> n) {
@@ -186,17 +544,44 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
             cfg.build(declaration);
         }
 
-        /** Create call graph from the list of compilation units. */
+        /** Create call graph from the list of compilation units. With a {@link #scope}, the call graph that
+         *  computed it is restricted to the declarations in scope, so that calls are only resolved once. */
         protected void createCallGraph(NodeList<CompilationUnit> nodeList) {
+            if (scopeCallGraph != null) {
+                callGraph = scopeCallGraph.restrictTo(inScope, cfgMap);
+                scopeCallGraph = null;
+                return;
+            }
             callGraph = new CallGraph(cfgMap, ClassGraph.getInstance());
             callGraph.build(nodeList);
         }
 
+        /** Compute the declarations in the {@link #scope}, so that no CFG is built for the rest. The call graph
+         *  is built before the CFGs, and ignores the calls performed by declarations that won't have a CFG,
+         *  as those calls are never part of the SDG's call graph. */
+        protected void computeScope(NodeList<CompilationUnit> nodeList) {
+            Set<CallableDeclaration<?>> withCFG = ASTUtils.newIdentityHashSet();
+            withCFG.addAll(collectDeclarations(nodeList));
+            scopeCallGraph = new CallGraph(ClassGraph.getInstance());
+            scopeCallGraph.build(nodeList);
+            List<CallGraph.Edge<?>> ignored = new LinkedList<>();
+            for (CallGraph.Edge<?> edge : scopeCallGraph.edgeSet())
+                if (!withCFG.contains(edge.getSource()))
+                    ignored.add(edge);
+            scopeCallGraph.removeAllEdges(ignored);
+            inScope = scope.compute(scopeCallGraph);
+        }
+
         /** Create class graph from the list of compilation units. */
         protected void createClassGraph(NodeList<CompilationUnit> nodeList){
             ClassGraph.getNewInstance().build(nodeList);
         }
 
+        /** Create the class graph again, after the given compilation units have been added or replaced. */
+        protected void updateClassGraph(NodeList<CompilationUnit> nodeList, Set<CompilationUnit> addedCus) {
+            ClassGraph.getNewInstance().build(nodeList);
+        }
+
 
         /** Perform interprocedural analyses to determine the actual and formal nodes. */
         protected void dataFlowAnalysis() {
@@ -204,30 +589,65 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
             new InterproceduralUsageFinder(callGraph, cfgMap).save();      // 3.2
         }
 
-        /** Build a PDG per declaration, based on the CFGs built previously and enhanced by data analyses. */
+        /** Perform the interprocedural analyses on part of the call graph, only generating
+         *  formal nodes for the given vertices. */
+        protected void dataFlowAnalysis(AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph, Set<CallGraph.Vertex> formalVertices) {
+            new InterproceduralDefinitionFinder(graph, cfgMap).save(formalVertices);
+            new InterproceduralUsageFinder(graph, cfgMap).save(formalVertices);
+        }
+
+        /** Build a PDG per declaration, based on the CFGs built previously and enhanced by data analyses.
+         *  The PDGs are copied to the SDG in the order of {@link #declarations}. */
         protected void buildAndCopyPDGs() {
-            for (CFG cfg : cfgMap.values()) {
+            buildAndCopyPDGs(declarations);
+        }
+
+        /** Build and copy to the SDG the PDGs of the given declarations, in order. As with the CFGs, they are
+         *  built one at a time, because building them resolves symbols. */
+        protected void buildAndCopyPDGs(List<CallableDeclaration<?>> declarations) {
+            for (CallableDeclaration<?> declaration : declarations) {
+                CFG cfg = cfgMap.get(declaration);
+                if (cfg == null)
+                    continue;
                 // 4.1, 4.2, 4.3
+                PDG pdg;
                 try {
-                    PDG pdg = createPDG(cfg);
+                    pdg = createPDG(cfg);
                     pdg.build(cfg.getDeclaration());
-                    // 4.4
-                    pdg.vertexSet().forEach(SDG.this::addVertex);
-                    pdg.edgeSet().forEach(arc -> addEdge(pdg.getEdgeSource(arc), pdg.getEdgeTarget(arc), arc));
                 } catch (Exception e) {
                     e.printStackTrace();
+                    continue;
                 }
+                // 4.4
+                pdg.vertexSet().forEach(SDG.this::addVertex);
+                pdg.edgeSet().forEach(arc -> addEdge(pdg.getEdgeSource(arc), pdg.getEdgeTarget(arc), arc));
             }
         }
 
         /** Add interprocedural arcs, connecting calls, their arguments and results to their corresponding declarations. */
         protected void connectCalls() {
-            new CallConnector(SDG.this).connectAllCalls(callGraph);
+            createCallConnector().connectAllCalls(callGraph);
+        }
+
+        /** Add the interprocedural arcs of the calls among the given nodes, which have just been added to the SDG. */
+        protected void connectCalls(Set<GraphNode<?>> newNodes) {
+            createCallConnector().connectCalls(newNodes, callGraph);
         }
 
         /** Connect actual-in to actual-out nodes, summarizing the interprocedural arcs. */
         protected void createSummaryArcs() {
-            new SummaryArcAnalyzer(SDG.this, callGraph).analyze();
+            createSummaryArcAnalyzer(callGraph).analyze();
+        }
+
+        /** Create a new call connector, of the appropriate type for the kind of SDG we're building. */
+        protected CallConnector createCallConnector() {
+            return new CallConnector(SDG.this);
+        }
+
+        /** Create a new summary arc analyzer for the given (part of the) call graph, of the
+         *  appropriate type for the kind of SDG we're building. */
+        protected AbstractSummaryArcAnalyzer<?, ?, ?> createSummaryArcAnalyzer(AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph) {
+            return new SummaryArcAnalyzer(SDG.this, graph, summaries);
         }
 
         /** Create a new CFG, of the appropriate type for the kind of SDG we're building. */
@@ -1,7 +1,10 @@
 package slicing.graphs.sdg;
 
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.CallableDeclaration;
+import org.jgrapht.graph.AbstractGraph;
 import slicing.graphs.CallGraph;
+import slicing.nodes.GraphNode;
 import slicing.nodes.SyntheticNode;
 import slicing.nodes.exceptionsensitive.ExitNode;
 import slicing.nodes.exceptionsensitive.ReturnNode;
@@ -9,34 +12,57 @@ import slicing.nodes.io.ActualIONode;
 import slicing.nodes.io.CallNode;
 import slicing.nodes.io.FormalIONode;
 import slicing.nodes.io.OutputNode;
+import slicing.utils.ASTUtils;
 
-import java.util.Collection;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Generates the summary arcs between actual-in and actual-out, return and exception/exit return nodes.
  */
 public class SummaryArcAnalyzer extends AbstractSummaryArcAnalyzer<ActualIONode, SyntheticNode<CallableDeclaration<?>>, FormalIONode> {
-    public SummaryArcAnalyzer(SDG sdg, CallGraph graph) {
+    /** The actual-in/out, return and exception/normal return nodes of each call. */
+    protected final Map<Node, List<SyntheticNode<?>>> callNodeMap = ASTUtils.newIdentityHashMap();
+
+    public SummaryArcAnalyzer(SDG sdg, AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph) {
         super(sdg, graph);
     }
 
+    public SummaryArcAnalyzer(SDG sdg, AbstractGraph<CallGraph.Vertex, CallGraph.Edge<?>> graph,
+                              Map<SyntheticNode<?>, Set<SyntheticNode<?>>> summaries) {
+        super(sdg, graph, summaries);
+    }
+
     @Override
-    protected Set<FormalIONode> computeFormalIn(SyntheticNode<CallableDeclaration<?>> formalOut) {
-        return sdg.createSlicingAlgorithm().traverseProcedure(formalOut).getGraphNodes().stream()
-                .filter(FormalIONode.class::isInstance)
-                .map(FormalIONode.class::cast)
-                .filter(FormalIONode::isInput)
-                .collect(Collectors.toSet());
+    protected void indexNodes() {
+        super.indexNodes();
+        for (GraphNode<?> node : sdg.vertexSet())
+            if (node instanceof ActualIONode || node instanceof CallNode.Return || node instanceof ReturnNode)
+                callNodeMap.computeIfAbsent(node.getAstNode(), n -> new ArrayList<>()).add((SyntheticNode<?>) node);
+    }
+
+    /** The nodes of the given type that belong to the call of the given edge. */
+    protected <T> Stream<T> callNodes(CallGraph.Edge<?> edge, Class<T> type) {
+        return callNodeMap.getOrDefault((Node) edge.getCall(), List.of()).stream()
+                .filter(type::isInstance)
+                .map(type::cast);
+    }
+
+    @Override
+    protected boolean isFormalIn(GraphNode<?> node) {
+        return node instanceof FormalIONode && ((FormalIONode) node).isInput();
+    }
+
+    @Override
+    protected boolean isOutputNode(GraphNode<?> node) {
+        return (node instanceof ActualIONode && ((ActualIONode) node).isOutput())
+                || node instanceof CallNode.Return || node instanceof ReturnNode;
     }
 
     @Override
     protected Collection<ActualIONode> findActualIn(CallGraph.Edge<?> edge, FormalIONode formalIn) {
-        return sdg.vertexSet().stream()
-                .filter(ActualIONode.class::isInstance)
-                .map(ActualIONode.class::cast)
-                .filter(n -> n.getAstNode() == edge.getCall())
+        return callNodes(edge, ActualIONode.class)
                 .filter(n -> n.matchesFormalIO(formalIn))
                 .collect(Collectors.toSet());
     }
@@ -55,10 +81,7 @@ public class SummaryArcAnalyzer extends AbstractSummaryArcAnalyzer<ActualIONode,
     /** Find the actual-out node that corresponds to the given formal-out in the given call.
      *  To locate any actual-out, you should use {@link #findOutputNode(CallGraph.Edge, SyntheticNode)}. */
     protected Collection<ActualIONode> findActualOut(CallGraph.Edge<?> edge, FormalIONode formalOut) {
-        return sdg.vertexSet().stream()
-                .filter(ActualIONode.class::isInstance)
-                .map(ActualIONode.class::cast)
-                .filter(n -> n.getAstNode() == edge.getCall())
+        return callNodes(edge, ActualIONode.class)
                 .filter(n -> n.matchesFormalIO(formalOut))
                 .collect(Collectors.toSet());
     }
@@ -66,20 +89,14 @@ public class SummaryArcAnalyzer extends AbstractSummaryArcAnalyzer<ActualIONode,
     /** Find the return node of the given call. There is only one per method.
      *  To locate any actual-out, you should use {@link #findOutputNode(CallGraph.Edge, SyntheticNode)}. */
     protected CallNode.Return findReturnNode(CallGraph.Edge<?> edge) {
-        return sdg.vertexSet().stream()
-                .filter(CallNode.Return.class::isInstance)
-                .map(CallNode.Return.class::cast)
-                .filter(n -> n.getAstNode() == edge.getCall())
+        return callNodes(edge, CallNode.Return.class)
                 .findAny().orElseThrow();
     }
 
     /** Find the exception/normal return node that corresponds to the given exception/normal exit in the given call.
      *  To locate any actual-out, you should use {@link #findOutputNode(CallGraph.Edge, SyntheticNode)}. */
     protected Collection<ReturnNode> getReturnNode(CallGraph.Edge<?> edge, ExitNode exitNode) {
-        return sdg.vertexSet().stream()
-                .filter(ReturnNode.class::isInstance)
-                .map(ReturnNode.class::cast)
-                .filter(n -> n.getAstNode() == edge.getCall())
+        return callNodes(edge, ReturnNode.class)
                 .filter(exitNode::matchesReturnNode)
                 .collect(Collectors.toSet());
     }
@@ -27,13 +27,14 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
     protected final String label;
     /** The JavaParser AST node represented by this node. */
     protected final N astNode;
-    /** A sorted list of actions (usages, definitions and declarations) performed in this node. */
+    /** A sorted list of actions (usages, definitions and declarations) performed in this node.
+     *  It should be an {@link ArrayList}, so that it can be {@link #trimToSize() trimmed}. */
     protected final List<VariableAction> variableActions;
-    /** The method calls contained  */
-    protected final List<Resolvable<? extends ResolvedMethodLikeDeclaration>> methodCalls = new LinkedList<>();
+    /** The method calls contained in this node. Allocated when the first one is added. */
+    protected List<Resolvable<? extends ResolvedMethodLikeDeclaration>> methodCalls = Collections.emptyList();
     /** Nodes that are generated as a result of the instruction represented by this GraphNode and that may
-     *  be included in Movable actions. */
-    protected final Set<SyntheticNode<?>> syntheticNodesInMovables = new HashSet<>();
+     *  be included in Movable actions. Allocated when the first one is added. */
+    protected Set<SyntheticNode<?>> syntheticNodesInMovables = Collections.emptySet();
 
     /** @see #isImplicitInstruction() */
     protected boolean isImplicit = false;
@@ -45,7 +46,7 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
 
     /** Create a graph node, with variable actions generated automatically. */
     protected GraphNode(long id, String label, N astNode) {
-        this(id, label, astNode, new LinkedList<>());
+        this(id, label, astNode, new ArrayList<>());
         extractVariables();
     }
 
@@ -149,6 +150,8 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
     /** Register a node that is contained in this node until the CFG
      *  is converted into the PDG. */
     public void addSyntheticNode(SyntheticNode<?> node) {
+        if (syntheticNodesInMovables.isEmpty())
+            syntheticNodesInMovables = new HashSet<>();
         syntheticNodesInMovables.add(node);
     }
 
@@ -161,7 +164,7 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
      *  is movable, its real node is registered in {@link #syntheticNodesInMovables}. */
     public void addVariableAction(VariableAction action) {
         if (action instanceof VariableAction.Movable)
-            syntheticNodesInMovables.add(((VariableAction.Movable) action).getRealNode());
+            addSyntheticNode(((VariableAction.Movable) action).getRealNode());
         variableActions.add(action);
     }
 
@@ -204,10 +207,25 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
 
     /** Create and append a call marker to the list of actions of this node. */
     public void addCallMarker(Resolvable<? extends ResolvedMethodLikeDeclaration> call, boolean enter) {
-        if (enter) methodCalls.add(call);
+        if (enter) {
+            if (methodCalls.isEmpty())
+                methodCalls = new ArrayList<>(1);
+            methodCalls.add(call);
+        }
         variableActions.add(new VariableAction.CallMarker(call, this, enter));
     }
 
+    /** Releases the unused capacity of the lists in this node. It is called once the graph
+     *  that contains it has been built, but actions may still be added afterwards. */
+    public void trimToSize() {
+        if (variableActions instanceof ArrayList)
+            ((ArrayList<VariableAction>) variableActions).trimToSize();
+        if (methodCalls instanceof ArrayList)
+            ((ArrayList<?>) methodCalls).trimToSize();
+        for (VariableAction action : variableActions)
+            action.trimToSize();
+    }
+
     // ============================================================
     // =======================  Overridden  =======================
     // ============================================================
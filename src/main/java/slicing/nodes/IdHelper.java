@@ -1,13 +1,14 @@
 package slicing.nodes;
 
-/** A singleton class that provides unique ids for {@link GraphNode}s. */
+import slicing.utils.AnalysisContext;
+
+/** Provides unique ids for {@link GraphNode}s. There is one per {@link AnalysisContext}. */
 public class IdHelper {
     private static final int START_ID = 0;
-    private static final IdHelper INSTANCE = new IdHelper();
 
     private long nextId;
 
-    private IdHelper() {
+    public IdHelper() {
         nextId = START_ID;
     }
 
@@ -15,7 +16,8 @@ public class IdHelper {
         return nextId++;
     }
 
+    /** The id helper of the current analysis context. */
     static IdHelper getInstance() {
-        return INSTANCE;
+        return AnalysisContext.current().getIdHelper();
     }
 }
@@ -4,13 +4,14 @@ import com.github.javaparser.ast.Node;
 import com.github.javaparser.resolution.types.ResolvedType;
 import slicing.nodes.oo.MemberNode;
 import slicing.nodes.oo.PolyMemberNode;
-import slicing.utils.Utils;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static slicing.utils.Utils.arrayJoin;
@@ -23,7 +24,11 @@ import static slicing.utils.Utils.arrayJoin;
  * its associated VariableAction. <br/>
  *
  * Object trees may not be reused, and must be cloned via {@link #clone()}.
- * Otherwise, the MemberNodes representing the tree will be the same in the graph.
+ * Otherwise, the MemberNodes representing the tree will be the same in the graph. <br/>
+ *
+ * Member names are interned and children are stored in sorted arrays. Clones and copies
+ * made by {@link #addAll(ObjectTree)} share an immutable {@link Shape} of the original
+ * subtrees, which is only copied (with new member nodes) when it is first accessed.
  */
 public class ObjectTree implements Cloneable {
     /** The default name of a tree's root. */
@@ -34,8 +39,15 @@ public class ObjectTree implements Cloneable {
     /** Regex pattern to split the root from the fields of a field access expression. */
     private static final Pattern FIELD_SPLIT = Pattern.compile("^(?<root>(([_0-9A-Za-z]+\\.)*this)|(?<dash>(-?))([_0-9A-Za-z]+\\k<dash>)+)(\\.(?<fields>.+))?$");
 
-    /** Direct children of this tree node, mapped by field name. */
-    private final Map<String, ObjectTree> childrenMap = new HashMap<>();
+    private static final String[] NO_NAMES = new String[0];
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    /** Interned names of the direct children of this tree node, sorted. The array is replaced
+     *  instead of modified when a child is inserted, so that it can be shared with shapes. */
+    private String[] names = NO_NAMES;
+    /** Direct children of this tree node, in the same order as {@link #names}. Each element is
+     *  either an ObjectTree or a {@link Shape} that has not been accessed yet. */
+    private Object[] children = NO_CHILDREN;
     /** The MemberNode that represents this tree node in the PDG and SDG. */
     private final MemberNode memberNode;
 
@@ -46,7 +58,7 @@ public class ObjectTree implements Cloneable {
 
     /** Create a root of a new object tree with the given name. */
     public ObjectTree(String memberName) {
-        this(new MemberNode(memberName, null));
+        this(new MemberNode(memberName.intern(), null));
     }
 
     /** Create a child tree node for the given field, whose node is linked to the given parent. */
@@ -64,6 +76,13 @@ public class ObjectTree implements Cloneable {
         this.memberNode = memberNode;
     }
 
+    /** Create a child tree node that copies the given shape, whose node is linked to the given parent. */
+    private ObjectTree(Shape shape, ObjectTree parent) {
+        this(shape.template.copyToParent(parent.memberNode));
+        names = shape.names;
+        children = Arrays.copyOf(shape.children, shape.children.length, Object[].class);
+    }
+
     /** The name of the variable or field represented by this tree. It doesn't include ancestors. */
     protected String getMemberName() {
         return memberNode == null ? ROOT_NAME : memberNode.getLabel();
@@ -75,7 +94,7 @@ public class ObjectTree implements Cloneable {
 
     /** Whether this object tree has fields. */
     public boolean hasChildren() {
-        return !childrenMap.isEmpty();
+        return names.length > 0;
     }
 
     /** Whether the field passed as argument has children. */
@@ -99,28 +118,27 @@ public class ObjectTree implements Cloneable {
             int firstDot = members.indexOf('.');
             String first = members.substring(0, firstDot);
             String rest = members.substring(firstDot + 1);
-            if (polymorphic && !childrenMap.containsKey(first) && !childrenMap.isEmpty())
-                return childrenMap.values().stream()
-                        .filter(ot -> ot.getMemberNode() instanceof PolyMemberNode)
-                        .anyMatch(ot -> ot.hasChildrenInternal(members, true));
-            return childrenMap.containsKey(first) && childrenMap.get(first).hasChildrenInternal(rest, polymorphic);
+            if (polymorphic && !hasChild(first) && hasChildren())
+                return polyChildren().anyMatch(ot -> ot.hasChildrenInternal(members, true));
+            return hasChild(first) && getChild(first).hasChildrenInternal(rest, polymorphic);
         } else {
-            if (polymorphic && !childrenMap.containsKey(members) && !childrenMap.isEmpty())
-                return childrenMap.values().stream()
-                        .filter(ot -> ot.getMemberNode() instanceof PolyMemberNode)
-                        .anyMatch(ot -> ot.hasChildrenInternal(members, true));
-            return childrenMap.get(members).hasChildren();
+            if (polymorphic && !hasChild(members) && hasChildren())
+                return polyChildren().anyMatch(ot -> ot.hasChildrenInternal(members, true));
+            return getChild(members).hasChildren();
         }
     }
 
     /** Whether this object tree immediately contains polymorphic nodes. */
     public boolean hasPoly() {
-        return childrenMap.values().stream().anyMatch(ot -> ot.getMemberNode() instanceof PolyMemberNode);
+        return IntStream.range(0, names.length).anyMatch(this::isPolyAt);
     }
 
     /** A set of entry pairs, containing the field name and its corresponding tree. It is unmodifiable. */
     public Set<Map.Entry<String, ObjectTree>> entrySet() {
-        return Collections.unmodifiableSet(childrenMap.entrySet());
+        Map<String, ObjectTree> map = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++)
+            map.put(names[i], childAt(i));
+        return Collections.unmodifiableSet(map.entrySet());
     }
 
     /** Insert a polymorphic node for the given type. The type node will be
@@ -128,7 +146,7 @@ public class ObjectTree implements Cloneable {
     public ObjectTree addType(ResolvedType rt) {
         assert !rt.describe().isBlank();
         assert !(memberNode instanceof PolyMemberNode);
-        return childrenMap.computeIfAbsent(rt.describe(), n -> new ObjectTree(rt, this));
+        return computeChildIfAbsent(rt.describe(), n -> new ObjectTree(rt, this));
     }
 
     public ObjectTree addType(ResolvedType rt, String[] prefix) {
@@ -164,13 +182,13 @@ public class ObjectTree implements Cloneable {
     public ObjectTree addImmediateField(String fieldName) {
         if (fieldName.contains(".") || fieldName.isBlank())
             throw new IllegalArgumentException("field name must not include dots or be blank!");
-        return childrenMap.computeIfAbsent(fieldName, f -> new ObjectTree(f, this));
+        return computeChildIfAbsent(fieldName, f -> new ObjectTree(f, this));
     }
 
     public ObjectTree addStaticField(String fieldName, Node node) {
         if (fieldName.contains(".") || fieldName.isBlank())
             throw new IllegalArgumentException("field name must not include dots or be blank!");
-        return childrenMap.computeIfAbsent(fieldName, f -> new ObjectTree(new MemberNode(fieldName, node, memberNode)));
+        return computeChildIfAbsent(fieldName, f -> new ObjectTree(new MemberNode(f, node, memberNode)));
     }
 
     /** Similar to {@link #addField(String)}, but may be called at any level
@@ -180,16 +198,15 @@ public class ObjectTree implements Cloneable {
             int firstDot = members.indexOf('.');
             String first = members.substring(0, firstDot);
             String rest = members.substring(firstDot + 1);
-            childrenMap.computeIfAbsent(first, f -> new ObjectTree(f, this));
-            return childrenMap.get(first).addNonRootField(rest);
+            return computeChildIfAbsent(first, f -> new ObjectTree(f, this)).addNonRootField(rest);
         } else {
-            return childrenMap.computeIfAbsent(members, f -> new ObjectTree(f, this));
+            return computeChildIfAbsent(members, f -> new ObjectTree(f, this));
         }
     }
 
     private ObjectTree addNonRootField(String[] members, int index) {
         assert index < members.length;
-        ObjectTree tree = childrenMap.computeIfAbsent(members[index], f -> new ObjectTree(f, this));
+        ObjectTree tree = computeChildIfAbsent(members[index], f -> new ObjectTree(f, this));
         if (members.length - 1 == index)
             return tree;
         else
@@ -199,11 +216,18 @@ public class ObjectTree implements Cloneable {
     /** Copies the structure of another object tree into this object tree.
      *  All elements inserted in the current tree are a copy of the argument's children and members. */
     public void addAll(ObjectTree tree) {
-        for (Map.Entry<String, ObjectTree> entry : tree.childrenMap.entrySet())
-            if (childrenMap.containsKey(entry.getKey()))
-                childrenMap.get(entry.getKey()).addAll(entry.getValue());
+        addAll(tree.names, tree.children);
+    }
+
+    /** @see #addAll(ObjectTree) */
+    private void addAll(String[] otherNames, Object[] otherChildren) {
+        for (int i = 0; i < otherNames.length; i++) {
+            int index = indexOf(otherNames[i]);
+            if (index >= 0)
+                childAt(index).addAll(namesOf(otherChildren[i]), childrenOf(otherChildren[i]));
             else
-                childrenMap.put(entry.getKey(), entry.getValue().clone(this));
+                insertChild(index, otherNames[i], shapeOf(otherChildren[i]));
+        }
     }
 
     /**
@@ -230,9 +254,10 @@ public class ObjectTree implements Cloneable {
 
     /** @see #leaves() */
     protected Stream<MemberNode> streamLeaves() {
-        if (childrenMap.isEmpty())
+        if (!hasChildren())
             return Stream.of(memberNode);
-        return childrenMap.values().stream()
+        return IntStream.range(0, names.length)
+                .mapToObj(this::childAt)
                 .flatMap(ObjectTree::streamLeaves);
     }
 
@@ -252,8 +277,8 @@ public class ObjectTree implements Cloneable {
             }
             Collection<ObjectTree> newResult = new LinkedList<>();
             for (ObjectTree res : result) {
-                if (!res.childrenMap.containsKey(first)) {
-                    for (String key : res.childrenMap.keySet()) {
+                if (!res.hasChild(first)) {
+                    for (String key : res.names) {
                         if (member.startsWith(key)) {
                             first = member.substring(0, key.length());
                             try {
@@ -265,12 +290,12 @@ public class ObjectTree implements Cloneable {
                         }
                     }
                 }
-                ObjectTree ot = res.childrenMap.get(first);
-                if (ot == null && res.childrenMap.size() > 0) {
-                    for (ObjectTree child : res.childrenMap.values()) {
-                        if (!(child.getMemberNode() instanceof PolyMemberNode) || !child.childrenMap.containsKey(first))
+                ObjectTree ot = res.getChild(first);
+                if (ot == null && res.hasChildren()) {
+                    for (int i = 0; i < res.names.length; i++) {
+                        if (!res.isPolyAt(i) || !res.childAt(i).hasChild(first))
                             throw new IllegalArgumentException("Could not locate member in object tree");
-                        newResult.add(child.childrenMap.get(first));
+                        newResult.add(res.childAt(i).getChild(first));
                     }
                     break;
                 } else if (ot == null) {
@@ -290,12 +315,12 @@ public class ObjectTree implements Cloneable {
         for (String field : member) {
             Collection<ObjectTree> newResult = new LinkedList<>();
             for (ObjectTree res : result) {
-                ObjectTree ot = res.childrenMap.get(field);
-                if (ot == null && res.childrenMap.size() > 0) {
-                    for (ObjectTree child : res.childrenMap.values()) {
-                        if (!(child.getMemberNode() instanceof PolyMemberNode) || !child.childrenMap.containsKey(field))
+                ObjectTree ot = res.getChild(field);
+                if (ot == null && res.hasChildren()) {
+                    for (int i = 0; i < res.names.length; i++) {
+                        if (!res.isPolyAt(i) || !res.childAt(i).hasChild(field))
                             throw new IllegalArgumentException("Could not locate member in object tree");
-                        newResult.add(child.childrenMap.get(field));
+                        newResult.add(res.childAt(i).getChild(field));
                     }
                     break;
                 } else if (ot == null) {
@@ -340,29 +365,23 @@ public class ObjectTree implements Cloneable {
             int firstDot = members.indexOf('.');
             String first = members.substring(0, firstDot);
             String rest = members.substring(firstDot + 1);
-            if (polymorphic && !childrenMap.containsKey(first) && !childrenMap.isEmpty())
-                return childrenMap.values().stream()
-                        .filter(ot -> ot.getMemberNode() instanceof PolyMemberNode)
-                        .anyMatch(ot -> ot.hasNonRootMember(members, true));
-            return childrenMap.containsKey(first) && childrenMap.get(first).hasNonRootMember(rest, polymorphic);
+            if (polymorphic && !hasChild(first) && hasChildren())
+                return polyChildren().anyMatch(ot -> ot.hasNonRootMember(members, true));
+            return hasChild(first) && getChild(first).hasNonRootMember(rest, polymorphic);
         } else {
-            if (polymorphic && !childrenMap.containsKey(members) && !childrenMap.isEmpty())
-                return childrenMap.values().stream()
-                        .filter(ot -> ot.getMemberNode() instanceof PolyMemberNode)
-                        .anyMatch(ot -> ot.hasNonRootMember(members, true));
-            return childrenMap.containsKey(members);
+            if (polymorphic && !hasChild(members) && hasChildren())
+                return polyChildren().anyMatch(ot -> ot.hasNonRootMember(members, true));
+            return hasChild(members);
         }
     }
 
     private boolean hasMemberIndexed(String[] member, int index, boolean polymorphic) {
         String first = member[index];
-        if (polymorphic && !childrenMap.containsKey(first) && !childrenMap.isEmpty())
-            return childrenMap.values().stream()
-                    .filter(ot -> ot.getMemberNode() instanceof PolyMemberNode)
-                    .anyMatch(ot -> ot.hasMemberIndexed(member, index, polymorphic));
+        if (polymorphic && !hasChild(first) && hasChildren())
+            return polyChildren().anyMatch(ot -> ot.hasMemberIndexed(member, index, polymorphic));
         if (index + 1 < member.length)
-            return childrenMap.containsKey(first) && childrenMap.get(first).hasMemberIndexed(member, index + 1, polymorphic);
-        else return childrenMap.containsKey(first);
+            return hasChild(first) && getChild(first).hasMemberIndexed(member, index + 1, polymorphic);
+        else return hasChild(first);
     }
 
     public MemberNode getRootNode() {
@@ -388,22 +407,22 @@ public class ObjectTree implements Cloneable {
             int firstDot = members.indexOf('.');
             String first = members.substring(0, firstDot);
             String rest = members.substring(firstDot + 1);
-            assert childrenMap.containsKey(first);
-            return childrenMap.get(first).getNodeForNonRoot(rest);
+            assert hasChild(first);
+            return getChild(first).getNodeForNonRoot(rest);
         } else {
-            assert childrenMap.containsKey(members);
-            return childrenMap.get(members).memberNode;
+            assert hasChild(members);
+            return getChild(members).memberNode;
         }
     }
 
     MemberNode getNodeForIndex(String[] members, int index) {
         if (members.length <= index)
             return memberNode;
-        assert childrenMap.containsKey(members[index]);
+        assert hasChild(members[index]);
         if (members.length == index + 1)
-            return childrenMap.get(members[index]).memberNode;
+            return getChild(members[index]).memberNode;
         else
-            return childrenMap.get(members[index]).getNodeForIndex(members, index + 1);
+            return getChild(members[index]).getNodeForIndex(members, index + 1);
     }
 
     /** Similar to {@link #getNodeFor(String)}, but if the argument does not contain
@@ -503,7 +522,9 @@ public class ObjectTree implements Cloneable {
     /** @return An iterator through all the trees of this structure, excluding the root. */
     private Iterator<ObjectTree> treeIterator() {
         return new Iterator<>() {
-            final Set<ObjectTree> remaining = new HashSet<>(childrenMap.values());
+            final Deque<ObjectTree> remaining = IntStream.range(0, names.length)
+                    .mapToObj(ObjectTree.this::childAt)
+                    .collect(Collectors.toCollection(ArrayDeque::new));
             Iterator<ObjectTree> childIterator = null;
 
             @Override
@@ -517,7 +538,7 @@ public class ObjectTree implements Cloneable {
             @Override
             public ObjectTree next() {
                 if (childIterator == null || !childIterator.hasNext()) {
-                    ObjectTree tree = Utils.setPop(remaining);
+                    ObjectTree tree = remaining.pop();
                     childIterator = tree.treeIterator();
                     return tree;
                 } else {
@@ -527,20 +548,120 @@ public class ObjectTree implements Cloneable {
         };
     }
 
+    /** The clone shares the shape of this tree's children, which will be copied when accessed. */
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     public Object clone() {
         ObjectTree clone = new ObjectTree(memberNode.getLabel());
-        for (Map.Entry<String, ObjectTree> entry : childrenMap.entrySet())
-            clone.childrenMap.put(entry.getKey(), entry.getValue().clone(clone));
+        clone.names = names;
+        clone.children = new Object[children.length];
+        for (int i = 0; i < children.length; i++)
+            clone.children[i] = shapeOf(children[i]);
         return clone;
     }
 
-    private ObjectTree clone(ObjectTree parent) {
-        ObjectTree clone = new ObjectTree(getMemberNode().copyToParent(parent.getMemberNode()));
-        for (Map.Entry<String, ObjectTree> entry : childrenMap.entrySet())
-            clone.childrenMap.put(entry.getKey(), entry.getValue().clone(clone));
-        return clone;
+    // ===========================================================
+    // ===================== CHILD STORAGE =======================
+    // ===========================================================
+
+    /** The position of the given child's name, or a negative value as in {@link Arrays#binarySearch(Object[], Object)}. */
+    private int indexOf(String name) {
+        return Arrays.binarySearch(names, name);
+    }
+
+    private boolean hasChild(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /** The child with the given name, or null if there is none. */
+    private ObjectTree getChild(String name) {
+        int index = indexOf(name);
+        return index >= 0 ? childAt(index) : null;
+    }
+
+    /** The child at the given position. If it is a shared shape, it is copied into this tree first. */
+    private ObjectTree childAt(int index) {
+        Object child = children[index];
+        if (child instanceof Shape) {
+            child = new ObjectTree((Shape) child, this);
+            children[index] = child;
+        }
+        return (ObjectTree) child;
+    }
+
+    /** Whether the child at the given position is a polymorphic node. Doesn't copy shared shapes. */
+    private boolean isPolyAt(int index) {
+        return nodeOf(children[index]) instanceof PolyMemberNode;
+    }
+
+    private Stream<ObjectTree> polyChildren() {
+        return IntStream.range(0, names.length)
+                .filter(this::isPolyAt)
+                .mapToObj(this::childAt);
+    }
+
+    /** Obtain the child with the given name, creating it if it doesn't exist.
+     *  The factory receives the interned name. */
+    private ObjectTree computeChildIfAbsent(String name, Function<String, ObjectTree> factory) {
+        int index = indexOf(name);
+        if (index >= 0)
+            return childAt(index);
+        String internedName = name.intern();
+        ObjectTree child = factory.apply(internedName);
+        insertChild(index, internedName, child);
+        return child;
+    }
+
+    /** Insert a child (tree or shape) at the position given by a failed {@link #indexOf(String)}. */
+    private void insertChild(int index, String name, Object child) {
+        int position = -index - 1;
+        String[] newNames = new String[names.length + 1];
+        Object[] newChildren = new Object[children.length + 1];
+        System.arraycopy(names, 0, newNames, 0, position);
+        System.arraycopy(children, 0, newChildren, 0, position);
+        newNames[position] = name;
+        newChildren[position] = child;
+        System.arraycopy(names, position, newNames, position + 1, names.length - position);
+        System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+        names = newNames;
+        children = newChildren;
+    }
+
+    private static MemberNode nodeOf(Object child) {
+        return child instanceof Shape ? ((Shape) child).template : ((ObjectTree) child).memberNode;
+    }
+
+    private static String[] namesOf(Object child) {
+        return child instanceof Shape ? ((Shape) child).names : ((ObjectTree) child).names;
+    }
+
+    private static Object[] childrenOf(Object child) {
+        return child instanceof Shape ? ((Shape) child).children : ((ObjectTree) child).children;
+    }
+
+    /** The shape of the given child. Shapes are returned as-is, trees are snapshotted. */
+    private static Shape shapeOf(Object child) {
+        if (child instanceof Shape)
+            return (Shape) child;
+        ObjectTree tree = (ObjectTree) child;
+        Shape[] shapes = new Shape[tree.children.length];
+        for (int i = 0; i < shapes.length; i++)
+            shapes[i] = shapeOf(tree.children[i]);
+        return new Shape(tree.memberNode, tree.names, shapes);
+    }
+
+    /** An immutable snapshot of the structure of a subtree, which may be shared by many trees.
+     *  Its member nodes are only templates, each tree that accesses it creates its own copies. */
+    private static class Shape {
+        private final MemberNode template;
+        private final String[] names;
+        private final Shape[] children;
+
+        private Shape(MemberNode template, String[] names, Shape[] children) {
+            this.template = template;
+            this.names = names;
+            this.children = children;
+        }
     }
 
     /**
@@ -615,11 +736,35 @@ public class ObjectTree implements Cloneable {
         if (o == null || getClass() != o.getClass()) return false;
         ObjectTree tree = (ObjectTree) o;
         return Objects.equals(getMemberName(), tree.getMemberName()) &&
-                childrenMap.equals(tree.childrenMap);
+                sameChildren(this, tree);
+    }
+
+    /** Whether two children (trees or shapes) contain the same members. Doesn't copy shared shapes. */
+    private static boolean sameChildren(Object a, Object b) {
+        if (a == b)
+            return true;
+        Object[] aChildren = childrenOf(a);
+        Object[] bChildren = childrenOf(b);
+        if (!Arrays.equals(namesOf(a), namesOf(b)))
+            return false;
+        for (int i = 0; i < aChildren.length; i++)
+            if (!nodeOf(aChildren[i]).getLabel().equals(nodeOf(bChildren[i]).getLabel())
+                    || !sameChildren(aChildren[i], bChildren[i]))
+                return false;
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getMemberName(), childrenMap);
+        return Objects.hash(getMemberName(), childrenHash(this));
+    }
+
+    private static int childrenHash(Object tree) {
+        String[] childNames = namesOf(tree);
+        Object[] treeChildren = childrenOf(tree);
+        int hash = 0;
+        for (int i = 0; i < childNames.length; i++)
+            hash += childNames[i].hashCode() ^ childrenHash(treeChildren[i]);
+        return hash;
     }
 }
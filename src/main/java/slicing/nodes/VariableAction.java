@@ -71,8 +71,10 @@ public abstract class VariableAction {
 
     protected final String name;
     protected final DeclarationType declarationType;
-    protected final Set<ResolvedType> dynamicTypes = new HashSet<>();
-    protected final Set<Expression> expressions = new NodeHashSet<>();
+    /** The possible types of this variable. Allocated when the static type is set. */
+    protected Set<ResolvedType> dynamicTypes = Collections.emptySet();
+    /** The expressions represented by this action. Allocated when the first one is added. */
+    protected Set<Expression> expressions = Collections.emptySet();
 
     protected ResolvedType staticType;
     protected GraphNode<?> graphNode;
@@ -82,8 +84,9 @@ public abstract class VariableAction {
     /** A list of pairs representing connections to be made between trees in the PDG.
      *  The variable action that contains the tree we must connect to in the PDG.
      *  The string, or member where the tree connection must start (in PDG). E.g.: our tree is "a.b.c" and this variable is "a",
-     *  the members "a.b" and "a.b.c" will be connected to "b" and "b.c" in treeConnectionTarget's tree.. */
-    protected final List<PDGConnection> pdgTreeConnections = new LinkedList<>();
+     *  the members "a.b" and "a.b.c" will be connected to "b" and "b.c" in treeConnectionTarget's tree..
+     *  Allocated when the first connection is added. */
+    protected List<PDGConnection> pdgTreeConnections = Collections.emptyList();
 
     private VariableAction(DeclarationType declarationType, String name, GraphNode<?> graphNode) {
         this(declarationType, name, graphNode, null);
@@ -167,7 +170,7 @@ public abstract class VariableAction {
 
     public void setStaticType(ResolvedType staticType) {
         this.staticType = staticType;
-        dynamicTypes.clear();
+        dynamicTypes = new HashSet<>();
         dynamicTypes.add(staticType);
         if (staticType.isReferenceType() && ClassGraph.getInstance().containsType(staticType.asReferenceType())) {
             ClassGraph.getInstance().subclassesOf(staticType.asReferenceType()).stream()
@@ -186,6 +189,8 @@ public abstract class VariableAction {
     }
 
     public void addExpression(Expression expression) {
+        if (expressions.isEmpty())
+            expressions = new NodeHashSet<>();
         expressions.add(expression);
     }
 
@@ -245,10 +250,14 @@ public abstract class VariableAction {
     }
 
     public void setPDGTreeConnectionTo(VariableAction targetAction, String sourcePrefixWithoutRoot, String targetPrefixWithoutRoot) {
+        if (pdgTreeConnections.isEmpty())
+            pdgTreeConnections = new ArrayList<>(2);
         pdgTreeConnections.add(new ObjectTreeConnection(this, targetAction, sourcePrefixWithoutRoot, targetPrefixWithoutRoot));
     }
 
     public void setPDGValueConnection(String member) {
+        if (pdgTreeConnections.isEmpty())
+            pdgTreeConnections = new ArrayList<>(2);
         pdgTreeConnections.add(new ValueConnection(this, member));
     }
 
@@ -256,6 +265,13 @@ public abstract class VariableAction {
         pdgTreeConnections.forEach(c -> c.apply(pdg));
     }
 
+    /** Releases the unused capacity of the lists in this action.
+     *  @see GraphNode#trimToSize() */
+    void trimToSize() {
+        if (pdgTreeConnections instanceof ArrayList)
+            ((ArrayList<PDGConnection>) pdgTreeConnections).trimToSize();
+    }
+
     public void applySDGTreeConnection(JSysDG sdg, VariableAction targetAction) {
         ObjectTreeConnection connection = new ObjectTreeConnection(this, targetAction, "", "");
         connection.applySDG(sdg);
@@ -575,6 +591,11 @@ public abstract class VariableAction {
             inner.applySDGTreeConnection(sdg, targetAction);
         }
 
+        @Override
+        void trimToSize() {
+            inner.trimToSize();
+        }
+
         @Override
         public void addExpression(Expression expression) {
             inner.addExpression(expression);
@@ -8,22 +8,22 @@ import com.github.javaparser.resolution.Resolvable;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
 import slicing.nodes.SyntheticNode;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 /** A node representing a call to a method or constructor. */
 public class CallNode extends SyntheticNode<Node> {
     protected static final String LABEL_TEMPLATE = "CALL %s";
 
     public CallNode(MethodCallExpr astNode) {
-        super(String.format(LABEL_TEMPLATE, astNode), astNode, new LinkedList<>());
+        super(String.format(LABEL_TEMPLATE, astNode), astNode, new ArrayList<>());
     }
 
     public CallNode(ObjectCreationExpr astNode) {
-        super(String.format(LABEL_TEMPLATE, astNode), astNode, new LinkedList<>());
+        super(String.format(LABEL_TEMPLATE, astNode), astNode, new ArrayList<>());
     }
 
     public CallNode(ExplicitConstructorInvocationStmt astNode) {
-        super(String.format(LABEL_TEMPLATE, astNode), astNode, new LinkedList<>());
+        super(String.format(LABEL_TEMPLATE, astNode), astNode, new ArrayList<>());
     }
 
     @SuppressWarnings("unchecked")
@@ -49,15 +49,15 @@ public class CallNode extends SyntheticNode<Node> {
         protected static final String LABEL = "call return";
 
         public Return(MethodCallExpr astNode) {
-            super(LABEL, astNode, new LinkedList<>());
+            super(LABEL, astNode, new ArrayList<>());
         }
 
         public Return(ObjectCreationExpr astNode) {
-            super(LABEL, astNode, new LinkedList<>());
+            super(LABEL, astNode, new ArrayList<>());
         }
 
         public Return(ExplicitConstructorInvocationStmt astNode) {
-            super(LABEL, astNode, new LinkedList<>());
+            super(LABEL, astNode, new ArrayList<>());
         }
 
         public static Return create(Resolvable<? extends ResolvedMethodLikeDeclaration> astNode) {
@@ -4,7 +4,7 @@ import com.github.javaparser.ast.Node;
 import slicing.nodes.GraphNode;
 import slicing.nodes.SyntheticNode;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 /** A synthetic node that represents an object or field that is within a
  *  VariableAction. They are placed in the graph when the PDG is built,
@@ -17,7 +17,7 @@ public class MemberNode extends SyntheticNode<Node> {
     }
 
     public MemberNode(String instruction, Node astNode, GraphNode<?> parent) {
-        super(instruction, astNode, new LinkedList<>());
+        super(instruction, astNode, new ArrayList<>());
         this.parent = parent;
     }
 
@@ -7,7 +7,7 @@ import slicing.nodes.GraphNode;
 public class PolyMemberNode extends MemberNode {
     /** Create a new polymorphic member node based on the given type and with the given parent. */
     public PolyMemberNode(ResolvedType type, GraphNode<?> parent) {
-        this(type.describe(), parent);
+        this(type.describe().intern(), parent);
     }
 
     /** Internal constructor for cloning purposes.
@@ -1,37 +1,87 @@
 package slicing.slicing;
 
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
 import slicing.arcs.Arc;
 import slicing.arcs.sdg.InterproceduralArc;
+import slicing.graphs.CompactGraph;
 import slicing.graphs.Graph;
 import slicing.nodes.GraphNode;
 import slicing.utils.Utils;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 
 /** The classic slicing algorithm: traverse all arcs backwards except interprocedural output arcs until
- *  no new node is added, then repeat the process but ignoring interprocedural input arcs instead. */
+ *  no new node is added, then repeat the process but ignoring interprocedural input arcs instead.
+ *  If the graph has been {@link Graph#freeze() frozen}, the traversal is performed on its
+ *  {@link CompactGraph compact snapshot}, where arcs are ignored by their kind. */
 public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
+    /** The kinds of arcs ignored in the first pass, equivalent to {@link #ignorePass1(Arc)}. */
+    protected static final byte PASS_1_KINDS = CompactGraph.INTERPROCEDURAL_OUTPUT;
+    /** The kinds of arcs ignored in the second pass, equivalent to {@link #ignorePass2(Arc)}. */
+    protected static final byte PASS_2_KINDS = CompactGraph.INTERPROCEDURAL_INPUT;
+    /** The kinds of arcs ignored in intraprocedural slicing, equivalent to {@link #ignoreProcedure(Arc)}. */
+    protected static final byte PROCEDURE_KINDS = CompactGraph.INTERPROCEDURAL;
+    /** The maximum number of node ids stored in the slices memoized by {@link #traverseAll(List)} (4 MB),
+     *  beyond which they are discarded. */
+    protected static final int MEMO_CAPACITY = 1 << 20;
+
     protected final Graph graph;
+    protected SliceBudget budget = SliceBudget.UNLIMITED;
+    /** The budget spent on the slice being computed, or null if it is unlimited. */
+    protected SliceBudget.Tracker tracker;
 
     public ClassicSlicingAlgorithm(Graph graph) {
         this.graph = graph;
     }
 
+    @Override
+    public void setBudget(SliceBudget budget) {
+        this.budget = Objects.requireNonNull(budget);
+    }
+
+    /** Intraprocedural slices are not limited by the {@link #budget}. */
     @Override
     public Slice traverseProcedure(GraphNode<?> slicingCriterion) {
+        tracker = null;
         Slice slice = new Slice(Set.of(slicingCriterion));
-        pass(slice, this::ignoreProcedure);
+        pass(slice, this::ignoreProcedure, PROCEDURE_KINDS);
         return slice;
     }
 
     @Override
     public Slice traverse(Set<GraphNode<?>> slicingCriterion) {
+        startBudget();
+        try {
+            Slice slice = new Slice(slicingCriterion);
+            pass(slice, this::ignorePass1, PASS_1_KINDS);
+            pass(slice, this::ignorePass2, PASS_2_KINDS);
+            return slice;
+        } catch (SliceBudget.ExceededException e) {
+            return exceededSlice(slicingCriterion, e);
+        } finally {
+            tracker = null;
+        }
+    }
+
+    /** Starts spending the {@link #budget} on a new slice. */
+    protected void startBudget() {
+        tracker = budget.isUnlimited() ? null : budget.start();
+    }
+
+    /** Registers a node reached in the current slice.
+     *  @throws SliceBudget.ExceededException If the budget has been exceeded. */
+    protected void reached() {
+        if (tracker != null)
+            tracker.reached();
+    }
+
+    /** The slice returned for a criterion whose budget has been exceeded: only the criterion, marked. */
+    protected Slice exceededSlice(Set<GraphNode<?>> slicingCriterion, SliceBudget.ExceededException e) {
         Slice slice = new Slice(slicingCriterion);
-        pass(slice, this::ignorePass1);
-        pass(slice, this::ignorePass2);
+        slice.markBudgetExceeded(e.getMessage());
         return slice;
     }
 
@@ -50,6 +100,183 @@ public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
         return arc instanceof InterproceduralArc;
     }
 
+    /** Additional kinds of arcs that must be ignored when reaching the given node, in a traversal
+     *  of the compact graph. Subclasses that ignore more arcs in {@link #ignorePass1(Arc)},
+     *  {@link #ignorePass2(Arc)} or {@link #ignoreProcedure(Arc)} must ignore them here too. */
+    protected byte ignoredKindsAt(GraphNode<?> target) {
+        return 0;
+    }
+
+    /** A single pass, on the compact graph if available. Arcs that match the predicate, or
+     *  whose kind matches the given kinds, are ignored. */
+    protected void pass(Slice slice, Predicate<Arc> ignoreCondition, byte ignoredKinds) {
+        Optional<CompactGraph> compactGraph = graph.getCompactGraph();
+        if (compactGraph.isPresent())
+            pass(slice, compactGraph.get(), ignoredKinds);
+        else
+            pass(slice, ignoreCondition);
+    }
+
+    /** A single pass on the compact graph: the arcs are traversed until no new node can be added.
+     *  Reached nodes are stored in the slice, and arcs of the given kinds are ignored. */
+    protected void pass(Slice slice, CompactGraph compactGraph, byte ignoredKinds) {
+        BitSet visited = new BitSet(compactGraph.nodeCount());
+        for (int id : compactGraph.idsOf(slice.getGraphNodes()))
+            visited.set(id);
+        reach(compactGraph, visited, ignoredKinds, id -> false);
+        addAll(slice, compactGraph, visited);
+    }
+
+    /**
+     * Traverses the compact graph backwards from the nodes in {@code visited}, which will contain
+     * every node reached.
+     * @param ignoredKinds The kinds of arcs that are not traversed.
+     * @param skip Nodes that are added to {@code visited} when reached, but whose arcs are not traversed.
+     */
+    protected void reach(CompactGraph compactGraph, BitSet visited, byte ignoredKinds, IntPredicate skip) {
+        int[] toVisit = visited.stream().toArray();
+        int size = toVisit.length;
+        while (size > 0) {
+            int node = toVisit[--size];
+            if (skip.test(node))
+                continue;
+            byte ignored = (byte) (ignoredKinds | ignoredKindsAt(compactGraph.node(node)));
+            for (int arc = compactGraph.firstIncoming(node); arc < compactGraph.endIncoming(node); arc++) {
+                if ((compactGraph.kind(arc) & ignored) != 0)
+                    continue;
+                int source = compactGraph.source(arc);
+                if (visited.get(source))
+                    continue;
+                visited.set(source);
+                reached();
+                if (size == toVisit.length)
+                    toVisit = Arrays.copyOf(toVisit, Math.max(16, size * 2));
+                toVisit[size++] = source;
+            }
+        }
+    }
+
+    /** Adds the nodes whose ids are set in the bitset to the slice, unless they are already present. */
+    protected void addAll(Slice slice, CompactGraph compactGraph, BitSet nodes) {
+        for (int id = nodes.nextSetBit(0); id >= 0; id = nodes.nextSetBit(id + 1)) {
+            GraphNode<?> node = compactGraph.node(id);
+            if (!slice.contains(node))
+                slice.add(node);
+        }
+    }
+
+    /** Whether the slice of a set of nodes is always the union of the slices of each node, which allows
+     *  {@link #traverseAll(List)} to reuse slices. Not the case if arcs are ignored depending on the criterion. */
+    protected boolean isDistributive() {
+        return true;
+    }
+
+    /** Obtain the slice of each of the given criteria. On a frozen graph, the slice of each criterion node is
+     *  memoized, and traversals that reach a memoized node in the first pass reuse its slice instead of
+     *  traversing the graph again. Criteria located in the same procedure share most of their slices, so
+     *  the memoized slices are discarded when the criteria move to another procedure, or when they hold
+     *  more than {@link #MEMO_CAPACITY} ids. The {@link #budget} only counts the nodes actually traversed
+     *  for each criterion. */
+    @Override
+    public List<Slice> traverseAll(List<Set<GraphNode<?>>> slicingCriteria) {
+        Optional<CompactGraph> compactGraph = graph.getCompactGraph();
+        if (compactGraph.isEmpty() || !isDistributive())
+            return SlicingAlgorithm.super.traverseAll(slicingCriteria);
+        Memo memo = new Memo(compactGraph.get().nodeCount());
+        BitSet reached = new BitSet(compactGraph.get().nodeCount());
+        Node procedure = null;
+        List<Slice> slices = new ArrayList<>(slicingCriteria.size());
+        for (Set<GraphNode<?>> criterion : slicingCriteria) {
+            Node criterionProcedure = criterion.isEmpty() ? null : procedureOf(criterion.iterator().next());
+            if (criterionProcedure != procedure) {
+                memo.clear();
+                procedure = criterionProcedure;
+            }
+            startBudget();
+            try {
+                reached.clear();
+                for (int id : compactGraph.get().idsOf(criterion))
+                    for (int sliced : nodeSlice(compactGraph.get(), id, memo))
+                        reached.set(sliced);
+                Slice slice = new Slice(criterion);
+                addAll(slice, compactGraph.get(), reached);
+                slices.add(slice);
+            } catch (SliceBudget.ExceededException e) {
+                slices.add(exceededSlice(criterion, e));
+            }
+        }
+        tracker = null;
+        return slices;
+    }
+
+    /** The declaration that contains the given node, or null if it doesn't belong to any. */
+    protected static Node procedureOf(GraphNode<?> node) {
+        Node astNode = node.getAstNode();
+        if (astNode == null || astNode instanceof CallableDeclaration)
+            return astNode;
+        return astNode.findAncestor(CallableDeclaration.class).orElse(null);
+    }
+
+    /** The two-pass slice of a single node, as a sorted array of node ids. In the first pass, the slice of
+     *  any memoized node contains everything that can be reached from it, so it is not traversed. */
+    protected int[] nodeSlice(CompactGraph compactGraph, int node, Memo memo) {
+        int[] memoized = memo.get(node);
+        if (memoized != null)
+            return memoized;
+        BitSet result = memo.result;
+        BitSet visited = memo.visited;
+        result.clear();
+        visited.clear();
+        visited.set(node);
+        reach(compactGraph, visited, PASS_1_KINDS, id -> {
+            int[] other = id == node ? null : memo.get(id);
+            if (other == null)
+                return false;
+            for (int sliced : other)
+                result.set(sliced);
+            return true;
+        });
+        reach(compactGraph, visited, PASS_2_KINDS, id -> false);
+        result.or(visited);
+        int[] slice = result.stream().toArray();
+        memo.put(node, slice);
+        return slice;
+    }
+
+    /** The slices of single nodes memoized by {@link #traverseAll(List)}, as sorted arrays of node ids,
+     *  and the bitsets reused to compute them. */
+    protected static class Memo {
+        protected final Map<Integer, int[]> slices = new HashMap<>();
+        protected final BitSet result;
+        protected final BitSet visited;
+        /** The number of ids stored in {@link #slices}. */
+        protected int size = 0;
+
+        protected Memo(int nodeCount) {
+            result = new BitSet(nodeCount);
+            visited = new BitSet(nodeCount);
+        }
+
+        protected int[] get(int node) {
+            return slices.get(node);
+        }
+
+        /** Stores the slice of a node, discarding the others if they would hold too many ids. */
+        protected void put(int node, int[] slice) {
+            if (size + slice.length > MEMO_CAPACITY)
+                clear();
+            if (slice.length <= MEMO_CAPACITY) {
+                slices.put(node, slice);
+                size += slice.length;
+            }
+        }
+
+        protected void clear() {
+            slices.clear();
+            size = 0;
+        }
+    }
+
     /** A single pass: the edges are traversed until no new node can be added. Reached nodes
      *  are stored in the first parameter, and arcs that match the second are ignored. */
     protected void pass(Slice slice, Predicate<Arc> ignoreCondition) {
@@ -64,6 +291,7 @@ public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
             if (visited.contains(node))
                 continue;
             visited.add(node);
+            reached();
             // Traverse all edges backwards
             for (Arc arc : graph.incomingEdgesOf(node)) {
                 if (ignoreCondition.test(arc))
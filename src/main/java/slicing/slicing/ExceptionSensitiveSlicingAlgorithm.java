@@ -5,6 +5,7 @@ import slicing.arcs.pdg.ConditionalControlDependencyArc;
 import slicing.arcs.pdg.ConditionalControlDependencyArc.CC1;
 import slicing.arcs.pdg.ConditionalControlDependencyArc.CC2;
 import slicing.arcs.sdg.InterproceduralArc;
+import slicing.graphs.CompactGraph;
 import slicing.graphs.exceptionsensitive.ESSDG;
 import slicing.nodes.GraphNode;
 import slicing.utils.Utils;
@@ -26,6 +27,7 @@ import java.util.stream.Stream;
  *     <li>CCD (apply only if none of the previous allow for a new node and this does): CC1 arcs are
  *          transitively traversed, even when the intermediate nodes are not (yet) included in the slice.</li>
  * </ol>
+ * Interprocedural slices are limited by a {@link SliceBudget}, which counts the nodes included in the slice.
  */
 public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
     protected static final Predicate<Arc> INTRAPROCEDURAL = InterproceduralArc.class::isInstance;
@@ -36,33 +38,63 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
 
     protected final ESSDG graph;
     protected Set<GraphNode<?>> slicingCriterion;
+    protected SliceBudget budget = SliceBudget.UNLIMITED;
+    /** The budget spent on the slice being computed, or null if it is unlimited. */
+    protected SliceBudget.Tracker tracker;
 
     /** Set of the arcs that have been traversed in the slicing process. */
     protected final Set<Arc> traversedArcSet = new HashSet<>();
     /** Similar to {@link #traversedArcSet} */
     protected final Map<GraphNode<?>, Set<Arc>> traversedArcMap = new HashMap<>();
+    /** The arcs in {@link #traversedArcSet}, indexed by their source. */
+    protected final Map<GraphNode<?>, List<Arc>> reachedArcMap = new HashMap<>();
 
     public ExceptionSensitiveSlicingAlgorithm(ESSDG graph) {
         this.graph = Objects.requireNonNull(graph);
     }
 
+    @Override
+    public void setBudget(SliceBudget budget) {
+        this.budget = Objects.requireNonNull(budget);
+    }
+
     @Override
     public Slice traverse(Set<GraphNode<?>> slicingCriterion) {
+        clear();
         this.slicingCriterion = slicingCriterion;
-        Slice slice = new Slice(slicingCriterion);
-        pass(slice, SDG_PASS_1.or(this::commonIgnoreConditions));
-        pass(slice, SDG_PASS_2.or(this::commonIgnoreConditions));
-        return slice;
+        tracker = budget.isUnlimited() ? null : budget.start();
+        try {
+            Slice slice = new Slice(slicingCriterion);
+            pass(slice, SDG_PASS_1.or(this::commonIgnoreConditions));
+            pass(slice, SDG_PASS_2.or(this::commonIgnoreConditions));
+            return slice;
+        } catch (SliceBudget.ExceededException e) {
+            Slice slice = new Slice(slicingCriterion);
+            slice.markBudgetExceeded(e.getMessage());
+            return slice;
+        } finally {
+            tracker = null;
+        }
     }
 
+    /** Intraprocedural slices are not limited by the {@link #budget}. */
     @Override
     public Slice traverseProcedure(GraphNode<?> slicingCriterion) {
+        clear();
+        tracker = null;
         this.slicingCriterion = Set.of(slicingCriterion);
         Slice slice = new Slice(this.slicingCriterion);
         pass(slice, INTRAPROCEDURAL.or(this::commonIgnoreConditions));
         return slice;
     }
 
+    /** Forget the arcs traversed by a previous slice, so that the same instance can be reused. */
+    protected void clear() {
+        traversedArcSet.clear();
+        traversedArcMap.clear();
+        reachedArcMap.clear();
+    }
+
     protected boolean commonIgnoreConditions(Arc arc) {
         return ppdgIgnore(arc) || essdgIgnore(arc);
     }
@@ -89,7 +121,7 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
             GraphNode<?> node = Utils.setPop(pending);
             // Populate the map for this node (if empty)
             traversedArcMap.computeIfAbsent(node, n -> new HashSet<>());
-            for (Arc arc : graph.incomingEdgesOf(node)) {
+            for (Arc arc : incomingArcs(node)) {
                 if (arc instanceof CC1)
                     cc1s.add(arc);
                 // Only traverse the arc if (1) it hasn't been traversed, (2) it hasn't been ignored
@@ -106,7 +138,7 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
             if (hasOnlyBeenReachedBy(graph.getEdgeTarget(arc), CC1.class)) {
                 traverseArc(arc, slice);
                 // Find the transitive CC1 edges and add them to the work-list
-                for (Arc a : graph.incomingEdgesOf(graph.getEdgeSource(arc)))
+                for (Arc a : incomingArcs(graph.getEdgeSource(arc)))
                     if (a instanceof CC1)
                         cc1s.add(a);
             }
@@ -137,24 +169,40 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
      */
     protected boolean traverseArc(Arc arc, Slice slice) {
         traversedArcMap.get(graph.getEdgeTarget(arc)).add(arc);
-        traversedArcSet.add(arc);
         GraphNode<?> source = graph.getEdgeSource(arc);
+        if (traversedArcSet.add(arc))
+            reachedArcMap.computeIfAbsent(source, n -> new LinkedList<>()).add(arc);
         if (!hasOnlyBeenReachedBy(source, CC1.class) && !hasOnlyBeenReachedBy(source, CC2.class)) {
-            if (!slice.contains(source))
+            if (!slice.contains(source)) {
                 slice.add(source);
+                if (tracker != null)
+                    tracker.reached();
+            }
             int sourceArcsTraversed = traversedArcMap.getOrDefault(source, Collections.emptySet()).size();
-            return  sourceArcsTraversed != graph.incomingEdgesOf(source).size();
+            return  sourceArcsTraversed != incomingArcs(source).size();
         }
         return false;
     }
 
     /** Check if a node only has been reached by arcs of a given class. */
     protected boolean hasOnlyBeenReachedBy(GraphNode<?> node, Class<? extends Arc> type) {
-        return reachedStream(node).count() > 0 && reachedStream(node).allMatch(type::isInstance);
+        List<Arc> reached = reachedArcMap.getOrDefault(node, Collections.emptyList());
+        return !reached.isEmpty() && reached.stream().allMatch(type::isInstance);
     }
 
     /** Obtain a stream of arcs that have reached the given node. */
     protected Stream<Arc> reachedStream(GraphNode<?> node) {
-        return traversedArcSet.stream().filter(arc -> graph.getEdgeSource(arc).equals(node));
+        return reachedArcMap.getOrDefault(node, Collections.emptyList()).stream();
+    }
+
+    /** The incoming arcs of a node, read from the compact graph if the graph has been frozen. */
+    protected Collection<Arc> incomingArcs(GraphNode<?> node) {
+        Optional<CompactGraph> compactGraph = graph.getCompactGraph();
+        if (compactGraph.isPresent()) {
+            int id = compactGraph.get().idOf(node);
+            if (id >= 0)
+                return compactGraph.get().incomingArcs(id);
+        }
+        return graph.incomingEdgesOf(node);
     }
 }
@@ -1,6 +1,7 @@
 package slicing.slicing;
 
 import slicing.arcs.Arc;
+import slicing.graphs.CompactGraph;
 import slicing.graphs.augmented.PSDG;
 import slicing.nodes.GraphNode;
 
@@ -40,6 +41,18 @@ public class PseudoPredicateSlicingAlgorithm extends ClassicSlicingAlgorithm {
         return super.ignoreProcedure(arc) || ignorePseudoPredicate(arc);
     }
 
+    @Override
+    protected boolean isDistributive() {
+        return false;
+    }
+
+    @Override
+    protected byte ignoredKindsAt(GraphNode<?> target) {
+        if (((PSDG) graph).isPseudoPredicate(target) && !slicingCriterion.contains(target))
+            return CompactGraph.CONTROL_DEPENDENCY;
+        return 0;
+    }
+
     protected boolean ignorePseudoPredicate(Arc arc) {
         GraphNode<?> target = graph.getEdgeTarget(arc);
         return ((PSDG) graph).isPseudoPredicate(target)
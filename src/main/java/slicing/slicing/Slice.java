@@ -3,6 +3,7 @@ package slicing.slicing;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.visitor.CloneVisitor;
 import slicing.nodes.GraphNode;
 import slicing.utils.ASTUtils;
@@ -18,6 +19,10 @@ public class Slice {
     private final Map<Long, GraphNode<?>> map = new HashMap<>();
     /** The nodes that conform the slicing criterion. */
     private final Set<GraphNode<?>> immutableSC;
+    /** The result of {@link #toAst()}, discarded when a node is added. */
+    private NodeList<CompilationUnit> ast;
+    /** Why the computation of this slice was abandoned, or null if it wasn't. */
+    private String budgetExceededReason;
 
     public Slice(Set<GraphNode<?>> slicingCriterion) {
         immutableSC = Set.copyOf(slicingCriterion);
@@ -32,6 +37,7 @@ public class Slice {
     public void add(GraphNode<?> node) {
         assert !map.containsKey(node.getId());
         map.put(node.getId(), node);
+        ast = null;
     }
 
     /** Add multiple nodes to this slice. */
@@ -59,9 +65,40 @@ public class Slice {
         return Set.copyOf(map.values());
     }
 
+    /** Whether this slice was abandoned because it exceeded its {@link SliceBudget}.
+     *  In that case, it is incomplete. */
+    public boolean isBudgetExceeded() {
+        return budgetExceededReason != null;
+    }
+
+    /** The limit of the {@link SliceBudget} that was exceeded, or null if the slice is complete. */
+    public String getBudgetExceededReason() {
+        return budgetExceededReason;
+    }
+
+    void markBudgetExceeded(String reason) {
+        budgetExceededReason = Objects.requireNonNull(reason);
+    }
+
+    /** Whether this slice contains no code, in which case {@link #toAst()} is empty. */
+    public boolean isEmpty() {
+        for (GraphNode<?> graphNode : map.values())
+            if (!graphNode.isImplicitInstruction() && graphNode.getAstNode() != null
+                    && graphNode.getAstNode().findCompilationUnit().isPresent())
+                return false;
+        return true;
+    }
+
     /** Organize all nodes pertaining to this slice in one or more CompilationUnits. CompilationUnits
-     *  themselves need not be part of the slice to be included if any of their components are present. */
+     *  themselves need not be part of the slice to be included if any of their components are present.
+     *  The result is computed once and shared by subsequent calls, until the slice is modified. */
     public NodeList<CompilationUnit> toAst() {
+        if (ast == null)
+            ast = createAst();
+        return ast;
+    }
+
+    protected NodeList<CompilationUnit> createAst() {
         Map<CompilationUnit, NodeHashSet<Node>> cuMap = ASTUtils.newIdentityHashMap();
         // Add each node to the corresponding bucket of the map
         // Nodes may not belong to a compilation unit (fictional nodes), and they are skipped for the slice.
@@ -90,4 +127,24 @@ public class Slice {
         }
         return cus;
     }
+
+    /** Obtain the sliced version of a single type declaration, like {@link #toAst()} would produce it.
+     *  Only the members of the type that are part of the slice are copied, instead of the whole
+     *  compilation unit. Empty if the type (or its compilation unit) is not part of the slice. */
+    public Optional<TypeDeclaration<?>> toAst(TypeDeclaration<?> type) {
+        Optional<CompilationUnit> cu = type.findCompilationUnit();
+        if (cu.isEmpty())
+            return Optional.empty();
+        NodeHashSet<Node> nodes = new NodeHashSet<>();
+        for (GraphNode<?> graphNode : map.values()) {
+            if (graphNode.isImplicitInstruction() || graphNode.getAstNode() == null)
+                continue;
+            Optional<CompilationUnit> nodeCu = graphNode.getAstNode().findCompilationUnit();
+            if (nodeCu.isPresent() && nodeCu.get() == cu.get())
+                nodes.add(graphNode.getAstNode());
+        }
+        if (nodes.isEmpty())
+            return Optional.empty();
+        return new SlicePruneVisitor().pruneCopy(type, nodes);
+    }
 }
@@ -0,0 +1,71 @@
+package slicing.slicing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the work spent on a single slice: the number of nodes reached by the traversal and the
+ * wall time elapsed. A slice that exceeds its budget is abandoned, and returned
+ * {@link Slice#isBudgetExceeded() marked as such}.
+ * @see SlicingAlgorithm#setBudget(SliceBudget)
+ */
+public class SliceBudget {
+    /** A budget that never runs out. */
+    public static final SliceBudget UNLIMITED = new SliceBudget(Integer.MAX_VALUE, Long.MAX_VALUE);
+    /** How many nodes are reached between checks of the elapsed time. */
+    protected static final int TIME_CHECK_INTERVAL = 256;
+
+    protected final int maxNodes;
+    protected final long maxMillis;
+
+    /**
+     * @param maxNodes The maximum number of nodes reached when computing a slice.
+     * @param maxMillis The maximum time spent computing a slice, in milliseconds.
+     */
+    public SliceBudget(int maxNodes, long maxMillis) {
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public boolean isUnlimited() {
+        return maxNodes == Integer.MAX_VALUE && maxMillis == Long.MAX_VALUE;
+    }
+
+    /** Starts spending this budget on a new slice. */
+    public Tracker start() {
+        return new Tracker();
+    }
+
+    /** The budget spent on a single slice. Not thread-safe. */
+    public class Tracker {
+        protected final long startTime = System.nanoTime();
+        protected final long maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        protected int nodes = 0;
+
+        /** Registers a newly reached node.
+         *  @throws ExceededException If the budget has been exceeded. */
+        public void reached() {
+            nodes++;
+            if (nodes > maxNodes)
+                throw new ExceededException(nodes + " nodes reached, limit is " + maxNodes);
+            if (nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - startTime > maxNanos)
+                throw new ExceededException("time limit of " + maxMillis + " ms exceeded");
+        }
+    }
+
+    /** Thrown by the slicing algorithms to abandon a slice whose budget has run out. */
+    public static class ExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ExceededException(String message) {
+            super(message);
+        }
+    }
+}
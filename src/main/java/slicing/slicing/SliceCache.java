@@ -0,0 +1,429 @@
+package slicing.slicing;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import slicing.graphs.CallGraph;
+import slicing.nodes.GraphNode;
+import slicing.utils.ASTUtils;
+import slicing.utils.NodeHashSet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The slices computed on a dependence graph, stored so that later runs can reuse them. Along with the
+ * slices, it stores the calls they were computed for, in order, and a hash of each source file. It is
+ * stored in a binary file, along with the options the graph was built and sliced with.
+ * <br/>
+ * Each slice is checked per file: it is reused while the files that contain its nodes are unchanged,
+ * and while the declarations it includes make and receive the same calls, as a change in another file
+ * may call them. When no file has changed, the graph doesn't have to be built to reuse the slices.
+ * <br/>
+ * Graphs are not stored. AST nodes are stored as locations (compilation unit, node type and range).
+ * Once a cache is {@link #attach(NodeList) attached} to freshly parsed compilation units, each location
+ * is resolved to its AST node the first time it is requested.
+ */
+public class SliceCache {
+    protected static final int MAGIC = 0x534c4343;
+    protected static final int VERSION = 1;
+
+    protected final String[] cuPaths;
+    /** The hash of each compilation unit's source file when the slices were computed. */
+    protected final String[] cuHashes;
+
+    // Calls
+    protected final AstLocation[] callers;
+    protected final AstLocation[] callees;
+    protected final AstLocation[] calls;
+    /** Slices by criterion. */
+    protected final Map<String, StoredSlice> slices;
+
+    /** The compilation units to which AST locations are resolved, by path. */
+    protected Map<String, CompilationUnit> cuMap;
+    /** The hash of each attached compilation unit's source file, by path. */
+    protected Map<String, String> currentHashes;
+    /** The nodes of each compilation unit, indexed by range. Built the first time a location in it is resolved. */
+    protected final Map<CompilationUnit, Map<Range, List<Node>>> rangeIndex = ASTUtils.newIdentityHashMap();
+
+    protected SliceCache(String[] cuPaths, String[] cuHashes, AstLocation[] callers, AstLocation[] callees,
+                         AstLocation[] calls, Map<String, StoredSlice> slices) {
+        this.cuPaths = cuPaths;
+        this.cuHashes = cuHashes;
+        this.callers = callers;
+        this.callees = callees;
+        this.calls = calls;
+        this.slices = slices;
+    }
+
+    // ===========================================================
+    // ========================= KEYS ============================
+    // ===========================================================
+
+    /** A hash of the contents of the given compilation unit's source file. Empty if it has no source file. */
+    public static Optional<String> sourceHash(CompilationUnit cu) throws IOException {
+        if (cu.getStorage().isEmpty())
+            return Optional.empty();
+        return Optional.of(toHex(newDigest().digest(Files.readAllBytes(cu.getStorage().get().getPath()))));
+    }
+
+    /** A hash of the calls made and received by the declarations that contain the given nodes. Locations
+     *  are used instead of ids, so that it can be compared with a graph built in a different run. */
+    protected static String callFingerprint(Collection<Node> nodes, CallGraph callGraph) {
+        Set<CallableDeclaration<?>> declarations = ASTUtils.newIdentityHashSet();
+        for (Node node : nodes) {
+            if (node instanceof CallableDeclaration)
+                declarations.add((CallableDeclaration<?>) node);
+            else
+                node.findAncestor(CallableDeclaration.class).ifPresent(declarations::add);
+        }
+        List<String> edges = new ArrayList<>();
+        for (CallableDeclaration<?> declaration : declarations)
+            for (CallGraph.Edge<?> edge : callGraph.edgesOf(declaration))
+                edges.add(describe(edge.getSource()) + " " + describe(edge.getTarget()) + " " + describe((Node) edge.getCall()));
+        Collections.sort(edges);
+        MessageDigest digest = newDigest();
+        for (String edge : edges)
+            digest.update(edge.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /** The path, node type and range of the given node. */
+    protected static String describe(Node node) {
+        return node.findCompilationUnit().flatMap(CompilationUnit::getStorage).map(s -> s.getPath().toString()).orElse("")
+                + ":" + node.getClass().getSimpleName() + node.getRange().map(Range::toString).orElse("");
+    }
+
+    protected static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes)
+            builder.append(String.format("%02x", b));
+        return builder.toString();
+    }
+
+    // ===========================================================
+    // ========================= WRITE ===========================
+    // ===========================================================
+
+    /** The AST nodes of the given slice that are stored, as {@link Slice#toAst()} would consider them. */
+    public static NodeHashSet<Node> astNodesOf(Slice slice) {
+        NodeHashSet<Node> nodes = new NodeHashSet<>();
+        for (GraphNode<?> node : slice.getGraphNodes())
+            if (!node.isImplicitInstruction() && node.getAstNode() != null)
+                nodes.add(node.getAstNode());
+        return nodes;
+    }
+
+    /** Stores the given calls, in order, and the AST nodes of the slices computed for them. The AST nodes
+     *  must belong to the given compilation units, from which the call graph was built. */
+    public static void write(NodeList<CompilationUnit> cus, List<StoredCall> storedCalls,
+                             Map<SlicingCriterion, ? extends Collection<Node>> slices, CallGraph callGraph,
+                             String options, Path file) throws IOException {
+        Map<CompilationUnit, Integer> cuIds = ASTUtils.newIdentityHashMap();
+        String[] cuPaths = new String[cus.size()];
+        String[] cuHashes = new String[cus.size()];
+        for (int i = 0; i < cuPaths.length; i++) {
+            CompilationUnit cu = cus.get(i);
+            cuIds.put(cu, i);
+            cuPaths[i] = cu.getStorage().map(s -> s.getPath().toString()).orElse("");
+            cuHashes[i] = sourceHash(cu).orElse("");
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, options);
+            out.writeInt(cuPaths.length);
+            for (int i = 0; i < cuPaths.length; i++) {
+                writeString(out, cuPaths[i]);
+                writeString(out, cuHashes[i]);
+            }
+            // Calls
+            out.writeInt(storedCalls.size());
+            for (StoredCall call : storedCalls) {
+                AstLocation.of(call.getCaller(), cuIds).write(out);
+                AstLocation.of(call.getCallee(), cuIds).write(out);
+                AstLocation.of(call.getCall(), cuIds).write(out);
+            }
+            // Slices
+            out.writeInt(slices.size());
+            for (Map.Entry<SlicingCriterion, ? extends Collection<Node>> entry : slices.entrySet()) {
+                writeString(out, entry.getKey().toString());
+                List<AstLocation> locations = new ArrayList<>();
+                Set<Integer> files = new TreeSet<>();
+                for (Node node : entry.getValue()) {
+                    AstLocation location = AstLocation.of(node, cuIds);
+                    if (location.cu >= 0) {
+                        locations.add(location);
+                        files.add(location.cu);
+                    }
+                }
+                out.writeInt(locations.size());
+                for (AstLocation location : locations)
+                    location.write(out);
+                out.writeInt(files.size());
+                for (int cu : files)
+                    out.writeInt(cu);
+                writeString(out, callFingerprint(entry.getValue(), callGraph));
+            }
+        }
+    }
+
+    protected static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // ===========================================================
+    // ========================== READ ===========================
+    // ===========================================================
+
+    /** Loads a cache from the given file. Empty if the file doesn't exist, can't be read, or
+     *  was written with different options. */
+    public static Optional<SliceCache> read(Path file, String options) {
+        if (!Files.exists(file))
+            return Optional.empty();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !readString(in).equals(options))
+                return Optional.empty();
+            String[] cuPaths = new String[in.readInt()];
+            String[] cuHashes = new String[cuPaths.length];
+            for (int i = 0; i < cuPaths.length; i++) {
+                cuPaths[i] = readString(in);
+                cuHashes[i] = readString(in);
+            }
+            // Calls
+            int callCount = in.readInt();
+            AstLocation[] callers = new AstLocation[callCount];
+            AstLocation[] callees = new AstLocation[callCount];
+            AstLocation[] calls = new AstLocation[callCount];
+            for (int i = 0; i < callCount; i++) {
+                callers[i] = AstLocation.read(in);
+                callees[i] = AstLocation.read(in);
+                calls[i] = AstLocation.read(in);
+            }
+            // Slices
+            int sliceCount = in.readInt();
+            Map<String, StoredSlice> slices = new HashMap<>();
+            for (int i = 0; i < sliceCount; i++) {
+                String criterion = readString(in);
+                AstLocation[] locations = new AstLocation[in.readInt()];
+                for (int j = 0; j < locations.length; j++)
+                    locations[j] = AstLocation.read(in);
+                int[] files = new int[in.readInt()];
+                for (int j = 0; j < files.length; j++)
+                    files[j] = in.readInt();
+                slices.put(criterion, new StoredSlice(locations, files, readString(in)));
+            }
+            return Optional.of(new SliceCache(cuPaths, cuHashes, callers, callees, calls, slices));
+        } catch (IOException | RuntimeException e) {
+            // Missing or corrupted cache, the slices must be computed again
+            return Optional.empty();
+        }
+    }
+
+    protected static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ===========================================================
+    // ======================== ACCESS ===========================
+    // ===========================================================
+
+    /** Resolve AST locations to the nodes of the given compilation units, and compare their source
+     *  files with the stored ones. Locations are resolved lazily. */
+    public SliceCache attach(NodeList<CompilationUnit> cus) {
+        cuMap = new HashMap<>();
+        currentHashes = new HashMap<>();
+        for (CompilationUnit cu : cus) {
+            if (cu.getStorage().isEmpty())
+                continue;
+            String path = cu.getStorage().get().getPath().toString();
+            cuMap.put(path, cu);
+            try {
+                sourceHash(cu).ifPresent(hash -> currentHashes.put(path, hash));
+            } catch (IOException e) {
+                // Unreadable source, the slices that depend on it are discarded
+            }
+        }
+        rangeIndex.clear();
+        return this;
+    }
+
+    /** Whether the attached compilation units are the ones the slices were computed from, unchanged. */
+    public boolean isUnchanged() {
+        if (currentHashes == null || cuMap.size() != cuPaths.length)
+            return false;
+        for (int i = 0; i < cuPaths.length; i++)
+            if (!cuHashes[i].equals(currentHashes.get(cuPaths[i])))
+                return false;
+        return true;
+    }
+
+    public int callCount() {
+        return calls.length;
+    }
+
+    /** The given call, if its declarations and the call itself can be found. */
+    public Optional<StoredCall> call(int call) {
+        Optional<Node> caller = resolve(callers[call]).filter(CallableDeclaration.class::isInstance);
+        Optional<Node> callee = resolve(callees[call]).filter(CallableDeclaration.class::isInstance);
+        Optional<Node> node = resolve(calls[call]);
+        if (caller.isEmpty() || callee.isEmpty() || node.isEmpty())
+            return Optional.empty();
+        return Optional.of(new StoredCall((CallableDeclaration<?>) caller.get(), (CallableDeclaration<?>) callee.get(), node.get()));
+    }
+
+    /**
+     * The AST nodes included in the slice stored for the given criterion, as {@link Slice#toAst()}
+     * would consider them. Empty if no slice was stored for the criterion, or if it is no longer valid.
+     * @param callGraph The call graph built from the attached compilation units. It may be null if
+     *                  they are {@link #isUnchanged() unchanged}.
+     */
+    public Optional<NodeHashSet<Node>> sliceAstNodes(SlicingCriterion criterion, CallGraph callGraph) {
+        StoredSlice slice = slices.get(criterion.toString());
+        if (slice == null)
+            return Optional.empty();
+        for (int file : slice.files)
+            if (!cuHashes[file].equals(currentHashes.get(cuPaths[file])))
+                return Optional.empty();
+        NodeHashSet<Node> nodes = new NodeHashSet<>();
+        for (AstLocation location : slice.locations) {
+            Optional<Node> node = resolve(location);
+            if (node.isEmpty())
+                return Optional.empty();
+            nodes.add(node.get());
+        }
+        assert callGraph != null || isUnchanged();
+        if (callGraph != null && !callFingerprint(nodes, callGraph).equals(slice.callFingerprint))
+            return Optional.empty();
+        return Optional.of(nodes);
+    }
+
+    protected Optional<Node> resolve(AstLocation location) {
+        if (location == null || cuMap == null || location.cu < 0)
+            return Optional.empty();
+        CompilationUnit cu = cuMap.get(cuPaths[location.cu]);
+        if (cu == null)
+            return Optional.empty();
+        Map<Range, List<Node>> index = rangeIndex.computeIfAbsent(cu, c -> {
+            Map<Range, List<Node>> map = new HashMap<>();
+            c.walk(n -> n.getRange().ifPresent(r -> map.computeIfAbsent(r, k -> new ArrayList<>(1)).add(n)));
+            return map;
+        });
+        for (Node node : index.getOrDefault(location.range(), Collections.emptyList()))
+            if (node.getClass().getName().equals(location.type))
+                return Optional.of(node);
+        return Optional.empty();
+    }
+
+    /** A call to be stored: the declaration that contains it, the one it invokes and the call itself. */
+    public static class StoredCall {
+        protected final CallableDeclaration<?> caller;
+        protected final CallableDeclaration<?> callee;
+        protected final Node call;
+
+        public StoredCall(CallableDeclaration<?> caller, CallableDeclaration<?> callee, Node call) {
+            this.caller = caller;
+            this.callee = callee;
+            this.call = call;
+        }
+
+        public CallableDeclaration<?> getCaller() {
+            return caller;
+        }
+
+        public CallableDeclaration<?> getCallee() {
+            return callee;
+        }
+
+        public Node getCall() {
+            return call;
+        }
+    }
+
+    /** A stored slice: the locations of its AST nodes, the files that contain them and
+     *  the {@link #callFingerprint(Collection, CallGraph) calls} of their declarations. */
+    protected static class StoredSlice {
+        protected final AstLocation[] locations;
+        protected final int[] files;
+        protected final String callFingerprint;
+
+        protected StoredSlice(AstLocation[] locations, int[] files, String callFingerprint) {
+            this.locations = locations;
+            this.files = files;
+            this.callFingerprint = callFingerprint;
+        }
+    }
+
+    /** The location of an AST node: its compilation unit, class and range. */
+    protected static class AstLocation {
+        protected static final AstLocation NONE = new AstLocation(-1, "", 0, 0, 0, 0);
+
+        protected final int cu;
+        protected final String type;
+        protected final int beginLine, beginColumn, endLine, endColumn;
+
+        protected AstLocation(int cu, String type, int beginLine, int beginColumn, int endLine, int endColumn) {
+            this.cu = cu;
+            this.type = type;
+            this.beginLine = beginLine;
+            this.beginColumn = beginColumn;
+            this.endLine = endLine;
+            this.endColumn = endColumn;
+        }
+
+        protected static AstLocation of(Node node, Map<CompilationUnit, Integer> cuIds) {
+            if (node == null || node.getRange().isEmpty())
+                return NONE;
+            Integer cu = node.findCompilationUnit().map(cuIds::get).orElse(null);
+            if (cu == null)
+                return NONE;
+            Range range = node.getRange().get();
+            return new AstLocation(cu, node.getClass().getName(), range.begin.line, range.begin.column,
+                    range.end.line, range.end.column);
+        }
+
+        protected Range range() {
+            return Range.range(beginLine, beginColumn, endLine, endColumn);
+        }
+
+        protected void write(DataOutputStream out) throws IOException {
+            out.writeInt(cu);
+            if (cu < 0)
+                return;
+            writeString(out, type);
+            out.writeInt(beginLine);
+            out.writeInt(beginColumn);
+            out.writeInt(endLine);
+            out.writeInt(endColumn);
+        }
+
+        protected static AstLocation read(DataInputStream in) throws IOException {
+            int cu = in.readInt();
+            if (cu < 0)
+                return NONE;
+            return new AstLocation(cu, readString(in), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        }
+    }
+}
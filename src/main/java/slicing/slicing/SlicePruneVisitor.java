@@ -11,6 +11,7 @@ import com.github.javaparser.ast.visitor.ModifierVisitor;
 import com.github.javaparser.ast.visitor.Visitable;
 import slicing.utils.NodeHashSet;
 
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /** Given an AST tree and a slice, removes or prunes all nodes that are not
@@ -25,6 +26,41 @@ public class SlicePruneVisitor extends ModifierVisitor<NodeHashSet<Node>> {
             n.setBody(new EmptyStmt());
     }
 
+    /** Obtain a pruned copy of a type declaration, like visiting a copy of its compilation unit would produce,
+     *  but copying only the members of the type that may be kept. Empty if the type would be removed. */
+    public Optional<TypeDeclaration<?>> pruneCopy(TypeDeclaration<?> type, NodeHashSet<Node> arg) {
+        if (!(type instanceof ClassOrInterfaceDeclaration)) {
+            if (type instanceof EnumDeclaration && !arg.contains(type))
+                return Optional.empty();
+            return Optional.ofNullable((TypeDeclaration<?>) type.clone().accept(this, arg));
+        }
+        ClassOrInterfaceDeclaration decl = (ClassOrInterfaceDeclaration) type;
+        NodeList<BodyDeclaration<?>> members = new NodeList<>();
+        for (BodyDeclaration<?> member : decl.getMembers()) {
+            if (member instanceof TypeDeclaration)
+                pruneCopy((TypeDeclaration<?>) member, arg).ifPresent(members::add);
+            else if (!(member.isMethodDeclaration() || member.isConstructorDeclaration() || member.isFieldDeclaration())
+                    || arg.contains(member)) {
+                Visitable v = member.clone().accept(this, arg);
+                if (v != null)
+                    members.add((BodyDeclaration<?>) v);
+            }
+        }
+        if (members.isEmpty() && !arg.contains(decl))
+            return Optional.empty();
+        ClassOrInterfaceDeclaration copy = new ClassOrInterfaceDeclaration(cloneAll(decl.getModifiers()),
+                cloneAll(decl.getAnnotations()), decl.isInterface(), decl.getName().clone(),
+                cloneAll(decl.getTypeParameters()), cloneAll(decl.getExtendedTypes()),
+                cloneAll(decl.getImplementedTypes()), members);
+        decl.getComment().ifPresent(comment -> copy.setComment(comment.clone()));
+        return Optional.of(copy);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <N extends Node> NodeList<N> cloneAll(NodeList<N> list) {
+        return list.stream().map(n -> (N) n.clone()).collect(Collectors.toCollection(NodeList::new));
+    }
+
     // ========== File visitors ==========
 
     @Override
@@ -2,11 +2,25 @@ package slicing.slicing;
 
 import slicing.nodes.GraphNode;
 
-import java.util.Set;
+import java.util.*;
 
 public interface SlicingAlgorithm {
     /** Obtain the nodes reached by this algorithm in a classic 2-pass interprocedural slice. */
     Slice traverse(Set<GraphNode<?>> slicingCriterion);
     /** Obtain the nodes reached by this algorithm intraprocedurally (i.e. without traversing interprocedural arcs. */
     Slice traverseProcedure(GraphNode<?> slicingCriterion);
+
+    /** Limits the work spent on each slice computed by {@link #traverse(Set)} and {@link #traverseAll(List)}.
+     *  Algorithms that don't support budgets ignore it. */
+    default void setBudget(SliceBudget budget) {}
+
+    /** Obtain the slice of each of the given criteria, in the same order, as {@link #traverse(Set)} would.
+     *  Criteria with the same nodes share the same slice object. */
+    default List<Slice> traverseAll(List<Set<GraphNode<?>>> slicingCriteria) {
+        Map<Set<GraphNode<?>>, Slice> sliceMap = new HashMap<>();
+        List<Slice> slices = new ArrayList<>(slicingCriteria.size());
+        for (Set<GraphNode<?>> criterion : slicingCriteria)
+            slices.add(sliceMap.computeIfAbsent(criterion, this::traverse));
+        return slices;
+    }
 }
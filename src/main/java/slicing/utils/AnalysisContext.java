@@ -0,0 +1,172 @@
+package slicing.utils;
+
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import slicing.graphs.ClassGraph;
+import slicing.graphs.exceptionsensitive.ExceptionTypeCache;
+import slicing.graphs.sdg.SDG;
+import slicing.nodes.IdHelper;
+
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The state shared by the analyses of a single project: its {@link ClassGraph}, the type solver used
+ * to convert declarations into types and resolve symbols, the resolutions cached and the allocation
+ * of node ids. Each thread works with its {@link #current() current context}, so that the graphs
+ * of different projects can be built concurrently in the same process. Threads that have not {@link #enter() entered} a context
+ * share a default one.
+ */
+public class AnalysisContext {
+    protected static final AnalysisContext DEFAULT = new AnalysisContext();
+    protected static final ThreadLocal<AnalysisContext> CURRENT = new ThreadLocal<>();
+
+    protected final CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+    /** A symbol resolver over {@link #typeSolver}, which sees the type solvers added to this context. */
+    protected final JavaSymbolSolver symbolResolver = new JavaSymbolSolver(typeSolver);
+    protected final IdHelper idHelper = new IdHelper();
+    protected final ResolutionCache resolutionCache = new ResolutionCache();
+    protected final ExceptionTypeCache exceptionTypeCache = new ExceptionTypeCache();
+    protected volatile ClassGraph classGraph;
+    /** The last dependence graph built in this context, kept to be updated instead of built again. It is
+     *  held softly, so that the graph and the ASTs it refers to are released when memory runs short. */
+    protected SoftReference<SDG> lastGraph;
+    /** The options {@link #lastGraph} was built with. */
+    protected String lastGraphOptions;
+    /** Whether we've added the JRE type solver or not. */
+    protected boolean typeSolverHasJRE = false;
+    /** Source and build paths whose types have been added to the type solver. */
+    protected final Set<Path> typeSolverPaths = new HashSet<>();
+
+    /** The context of the current thread. */
+    public static AnalysisContext current() {
+        AnalysisContext context = CURRENT.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    /** The context used by threads that have not entered any. */
+    public static AnalysisContext getDefault() {
+        return DEFAULT;
+    }
+
+    /** Makes this the current context of this thread, until the returned scope is closed. */
+    public Scope enter() {
+        AnalysisContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        };
+    }
+
+    /** Runs the task with this as the current context of this thread. */
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /** Computes the task's result with this as the current context of this thread. */
+    public <T> T call(Supplier<T> task) {
+        Scope scope = enter();
+        try {
+            return task.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /** The class graph of this context, or null if none has been created. */
+    public ClassGraph getClassGraph() {
+        return classGraph;
+    }
+
+    /** Replaces the class graph of this context.
+     *  @see ClassGraph#getNewInstance() */
+    public void setClassGraph(ClassGraph classGraph) {
+        this.classGraph = classGraph;
+    }
+
+    /** The last dependence graph {@link #setLastGraph(SDG, String) stored} in this context, if it was built
+     *  with the given options. */
+    public synchronized Optional<SDG> getLastGraph(String options) {
+        if (lastGraph == null || !lastGraphOptions.equals(options))
+            return Optional.empty();
+        return Optional.ofNullable(lastGraph.get());
+    }
+
+    /** Removes the last dependence graph from this context, returning it if it was built with the given
+     *  options. The graph must be {@link #setLastGraph(SDG, String) stored} again once it has been updated,
+     *  so that a graph left half updated by a failure is never reused. */
+    public synchronized Optional<SDG> takeLastGraph(String options) {
+        Optional<SDG> graph = getLastGraph(options);
+        setLastGraph(null, null);
+        return graph;
+    }
+
+    /** Stores a dependence graph built in this context, replacing the previous one. A null graph
+     *  releases the one stored. */
+    public synchronized void setLastGraph(SDG graph, String options) {
+        this.lastGraph = graph != null ? new SoftReference<>(graph) : null;
+        this.lastGraphOptions = options;
+    }
+
+    public IdHelper getIdHelper() {
+        return idHelper;
+    }
+
+    public ResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
+    public ExceptionTypeCache getExceptionTypeCache() {
+        return exceptionTypeCache;
+    }
+
+    /** Obtain the type solver. This resulting object should not be manually modified. */
+    public TypeSolver getTypeSolver() {
+        return typeSolver;
+    }
+
+    /** The symbol resolver of this context, to be set in the parser configuration of the
+     *  compilation units analysed in it. */
+    public SymbolResolver getSymbolResolver() {
+        return symbolResolver;
+    }
+
+    /** Append a type solver (typically a {@link com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver JavaParserTypeSolver}. */
+    public synchronized void addTypeSolver(TypeSolver typeSolver) {
+        this.typeSolver.add(typeSolver);
+    }
+
+    /** Append a {@link ReflectionTypeSolver} to the type solver, JRE only. This operation can
+     *  only be performed once, subsequent invocations will be discarded. */
+    public synchronized void addTypeSolverJRE() {
+        if (!typeSolverHasJRE) {
+            typeSolver.add(new ReflectionTypeSolver(true));
+            typeSolverHasJRE = true;
+        }
+    }
+
+    /** Record that the types in the given source or build path are added to the type solver.
+     *  Returns false if the path had already been registered, and its types must not be added again. */
+    public synchronized boolean registerTypeSolverPath(Path path) {
+        return typeSolverPaths.add(path);
+    }
+
+    /** The period during which a context is the current one of a thread. */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
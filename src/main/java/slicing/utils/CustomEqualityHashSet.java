@@ -5,24 +5,49 @@ import java.util.*;
 /**
  * A customized abstract HashSet, which allows for customization of the equality
  * method used to compare objects. To create a child class, just implement the
- * abstract methods.
+ * abstract methods. <br/>
+ * Elements are stored with open addressing and linear probing: a table of elements
+ * and a parallel table with their hash codes, which are compared before calling
+ * {@link #objEquals(Object, Object)}. Removing an element moves back the elements
+ * probed after it, except when removing through an iterator, which leaves a marker
+ * behind so that the other elements keep their slots. Markers are discarded when
+ * the table is resized.
  */
 public abstract class CustomEqualityHashSet<T> extends AbstractSet<T> {
-    /** The underlying collection of objects, each list acts as bucket for colliding hash codes. */
-    protected final Map<Integer, List<T>> map;
+    protected static final int DEFAULT_CAPACITY = 8;
+    protected static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    /** The marker left in the slots of elements removed through an iterator. */
+    protected static final Object REMOVED = new Object();
+
+    /** The fraction of slots (including removed ones) that may be used before the table is resized. */
+    protected final float loadFactor;
+    /** The slots of the table: an element, {@link #REMOVED} or null if empty. Its length is a power of two. */
+    protected Object[] elements;
+    /** The hash code of the element in each slot. */
+    protected int[] hashes;
 
     protected int size = 0;
+    /** The number of slots that contain {@link #REMOVED}. */
+    protected int removed = 0;
+    /** The number of used slots at which the table is resized. */
+    protected int threshold;
 
     public CustomEqualityHashSet() {
-        map = new HashMap<>();
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
     }
 
     public CustomEqualityHashSet(int initialCapacity) {
-        map = new HashMap<>(initialCapacity);
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
     }
 
+    /** @param loadFactor Must be greater than 0 and smaller than 1. */
     public CustomEqualityHashSet(int initialCapacity, float loadFactor) {
-        map = new HashMap<>(initialCapacity, loadFactor);
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((int) Math.ceil(initialCapacity / loadFactor)));
     }
 
     /** Compares two objects to determine equality. The objects are assumed to be of type {@link T}. */
@@ -35,10 +60,33 @@ public abstract class CustomEqualityHashSet<T> extends AbstractSet<T> {
     @Override
     public boolean add(T t) {
         Objects.requireNonNull(t);
-        List<T> bucket = map.computeIfAbsent(t.hashCode(), i -> new LinkedList<>());
-        if (contains(t, bucket))
-            return false;
-        bucket.add(t);
+        int hash = hash(t);
+        int mask = elements.length - 1;
+        int free = -1;
+        int i = hash & mask;
+        for (; elements[i] != null; i = (i + 1) & mask) {
+            if (elements[i] == REMOVED) {
+                if (free < 0)
+                    free = i;
+            } else if (hashes[i] == hash && objEquals(t, elements[i])) {
+                return false;
+            }
+        }
+        if (free >= 0) {
+            // Reuse the first removed slot of the probe sequence
+            elements[free] = t;
+            hashes[free] = hash;
+            removed--;
+            size++;
+            return true;
+        }
+        if (size + removed + 1 > threshold) {
+            resize();
+            mask = elements.length - 1;
+            for (i = hash & mask; elements[i] != null; i = (i + 1) & mask);
+        }
+        elements[i] = t;
+        hashes[i] = hash;
         size++;
         return true;
     }
@@ -47,65 +95,62 @@ public abstract class CustomEqualityHashSet<T> extends AbstractSet<T> {
     public boolean remove(Object o) {
         if (!objInstanceOf(o))
             return false;
-        List<T> bucket = map.get(o.hashCode());
-        if (bucket == null)
-            return false;
-        Iterator<T> it = bucket.iterator();
-        while (it.hasNext()) {
-            T t = it.next();
-            if (objEquals(t, o)) {
-                it.remove();
-                size--;
-                return true;
-            }
-        }
-        return false; // matching element not found
+        int index = indexOf(o, hash(o));
+        if (index < 0)
+            return false; // matching element not found
+        deleteAt(index);
+        return true;
     }
 
     @Override
     public boolean contains(Object o) {
-        List<T> bucket = map.get(o.hashCode());
-        if (bucket == null)
-            return false;
-        return contains(o, bucket);
-    }
-
-    /** Whether the given bucket contains the given object. */
-    protected boolean contains(Object o, List<T> bucket) {
         if (!objInstanceOf(o))
             return false;
-        for (T element : bucket)
-            if (objEquals(element, o))
-                return true;
-        return false;
+        return indexOf(o, hash(o)) >= 0;
     }
 
     @Override
     public void clear() {
-        map.clear();
+        Arrays.fill(elements, null);
         size = 0;
+        removed = 0;
     }
 
     @Override
     public Iterator<T> iterator() {
-        Iterator<T> it = map.values().stream().flatMap(Collection::stream).iterator();
         return new Iterator<>() {
-            T last = null;
+            /** The slot of the next element, or the length of the table if there are none left. */
+            int next = advance(0);
+            int last = -1;
+
+            /** The first slot at or after the given one that contains an element. */
+            private int advance(int from) {
+                while (from < elements.length && (elements[from] == null || elements[from] == REMOVED))
+                    from++;
+                return from;
+            }
 
             @Override
             public boolean hasNext() {
-                return it.hasNext();
+                return next < elements.length;
             }
 
             @Override
+            @SuppressWarnings("unchecked")
             public T next() {
-                return last = it.next();
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                last = next;
+                next = advance(next + 1);
+                return (T) elements[last];
             }
 
             @Override
             public void remove() {
-                if (last != null)
-                    CustomEqualityHashSet.this.remove(last);
+                if (last < 0)
+                    throw new IllegalStateException();
+                removeAt(last);
+                last = -1;
             }
         };
     }
@@ -114,4 +159,81 @@ public abstract class CustomEqualityHashSet<T> extends AbstractSet<T> {
     public int size() {
         return size;
     }
+
+    /** The slot that contains an element equal to the given object, or -1 if there is none. */
+    @SuppressWarnings("unchecked")
+    protected int indexOf(Object o, int hash) {
+        int mask = elements.length - 1;
+        for (int i = hash & mask; elements[i] != null; i = (i + 1) & mask)
+            if (elements[i] != REMOVED && hashes[i] == hash && objEquals((T) elements[i], o))
+                return i;
+        return -1;
+    }
+
+    /** Empties the given slot, moving back the elements after it that would no longer be reachable
+     *  from their initial slot. Removed markers are left in place. */
+    protected void deleteAt(int index) {
+        int mask = elements.length - 1;
+        int hole = index;
+        for (int j = (hole + 1) & mask; elements[j] != null; j = (j + 1) & mask) {
+            if (elements[j] == REMOVED)
+                continue;
+            int home = hashes[j] & mask;
+            // Move the element if its initial slot isn't cyclically within (hole, j]
+            if (hole <= j ? (home <= hole || home > j) : (home <= hole && home > j)) {
+                elements[hole] = elements[j];
+                hashes[hole] = hashes[j];
+                hole = j;
+            }
+        }
+        elements[hole] = null;
+        size--;
+    }
+
+    /** Replaces the element in the given slot with a marker, so that the slots of the other elements
+     *  don't change. It is used to remove elements while iterating. */
+    protected void removeAt(int index) {
+        elements[index] = REMOVED;
+        size--;
+        removed++;
+    }
+
+    /** Rebuilds the table without removed elements, doubling its length if it's needed to fit them. */
+    protected void resize() {
+        Object[] oldElements = elements;
+        int[] oldHashes = hashes;
+        int length = size + 1 > threshold / 2 ? oldElements.length * 2 : oldElements.length;
+        allocate(length);
+        int mask = length - 1;
+        for (int j = 0; j < oldElements.length; j++) {
+            Object element = oldElements[j];
+            if (element == null || element == REMOVED)
+                continue;
+            int i = oldHashes[j] & mask;
+            while (elements[i] != null)
+                i = (i + 1) & mask;
+            elements[i] = element;
+            hashes[i] = oldHashes[j];
+        }
+        removed = 0;
+    }
+
+    private void allocate(int length) {
+        elements = new Object[length];
+        hashes = new int[length];
+        threshold = Math.min((int) (length * loadFactor), length - 1);
+    }
+
+    /** The smallest power of two greater or equal to the argument, and at least 2. */
+    private static int tableSizeFor(int capacity) {
+        return Math.max(2, Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1);
+    }
+
+    /** The hash code of the given object, mixed so that the lower bits used to index the table vary.
+     *  Consecutive hash codes (e.g., of AST nodes) must not land on consecutive slots, or linear probing
+     *  would scan long runs of occupied slots. */
+    protected static int hash(Object o) {
+        int h = o.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
 }
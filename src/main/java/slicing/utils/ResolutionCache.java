@@ -0,0 +1,80 @@
+package slicing.utils;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.resolution.Resolvable;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A memoization layer over JavaParser's symbol solver. Resolved declarations ({@code resolve()})
+ * and types ({@code calculateResolvedType()}) are stored per AST node (by identity), so that the
+ * parse phase and the construction of the SDG share the result of every resolution performed.
+ * Failed resolutions are cached too: the exception is stored and re-thrown on subsequent lookups.
+ * Each {@link AnalysisContext} holds its own cache, so that concurrent analyses don't share entries.
+ * <br/>
+ * The cache must be {@link #clear() cleared} whenever the set of compilation units being analysed
+ * changes, as stale entries keep the old AST alive.
+ */
+public class ResolutionCache {
+    /** Results of {@link Resolvable#resolve()}, or the exception thrown by it. */
+    protected final Map<Node, Object> declarationMap = Collections.synchronizedMap(ASTUtils.newIdentityHashMap());
+    /** Results of {@link Expression#calculateResolvedType()}, or the exception thrown by it. */
+    protected final Map<Node, Object> typeMap = Collections.synchronizedMap(ASTUtils.newIdentityHashMap());
+
+    /** The cache of the current {@link AnalysisContext}. */
+    public static ResolutionCache getInstance() {
+        return AnalysisContext.current().getResolutionCache();
+    }
+
+    /** Memoized version of {@code resolvable.resolve()}, in the current context. The argument must be an AST node. */
+    public static <R> R resolve(Resolvable<R> resolvable) {
+        return lookup(getInstance().declarationMap, (Node) resolvable, n -> resolvable.resolve());
+    }
+
+    /** Memoized version of {@link Expression#calculateResolvedType()}, in the current context. */
+    public static ResolvedType calculateResolvedType(Expression expression) {
+        return lookup(getInstance().typeMap, expression, n -> expression.calculateResolvedType());
+    }
+
+    /** Removes every cached resolution. */
+    public void clear() {
+        declarationMap.clear();
+        typeMap.clear();
+    }
+
+    /** Number of resolutions (positive and negative) currently stored. */
+    public int size() {
+        return declarationMap.size() + typeMap.size();
+    }
+
+    /** Obtains the value for the given node, computing it if absent. The computation is performed
+     *  outside any lock; if two threads race for the same node, both results are equivalent. */
+    @SuppressWarnings("unchecked")
+    protected static <R> R lookup(Map<Node, Object> map, Node node, Function<Node, R> resolver) {
+        Object value = map.get(node);
+        if (value == null) {
+            try {
+                value = resolver.apply(node);
+            } catch (RuntimeException e) {
+                value = new Failure(e);
+            }
+            map.put(node, value);
+        }
+        if (value instanceof Failure)
+            throw ((Failure) value).exception;
+        return (R) value;
+    }
+
+    /** Wrapper for a negative result, so that it can be told apart from a resolved value. */
+    protected static class Failure {
+        protected final RuntimeException exception;
+
+        protected Failure(RuntimeException exception) {
+            this.exception = exception;
+        }
+    }
+}
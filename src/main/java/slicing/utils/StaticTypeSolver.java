@@ -1,26 +1,22 @@
 package slicing.utils;
 
 import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
 /** A static class whose only purpose is storing a type solver for conversions
- *  of ResolvedTypeDeclaration objects into ResolvedType ones. */
+ *  of ResolvedTypeDeclaration objects into ResolvedType ones. The type solver
+ *  belongs to the {@link AnalysisContext#current() current analysis context}. */
 public class StaticTypeSolver {
-    protected static final CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver();
-
-    /** Whether we've added the JRE type solver or not. */
-    protected static boolean typeSolverHasJRE = false;
-
+    // Only for ASTs parsed with StaticJavaParser outside any analysis: analysed
+    // compilation units use the symbol resolver of their own context
     static {
-        StaticJavaParser.getConfiguration().setSymbolResolver(new JavaSymbolSolver(combinedTypeSolver));
+        StaticJavaParser.getConfiguration().setSymbolResolver(AnalysisContext.getDefault().getSymbolResolver());
     }
 
     /** Append a type solver (typically a {@link com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver JavaParserTypeSolver}. */
     public static void addTypeSolver(TypeSolver typeSolver) {
-        combinedTypeSolver.add(typeSolver);
+        AnalysisContext.current().addTypeSolver(typeSolver);
     }
 
     /** Append a {@link ReflectionTypeSolver} to the type solver, JRE only.
@@ -34,14 +30,11 @@ public class StaticTypeSolver {
      *  This operation can only be performed once, subsequent invocations will
      *  be discarded.  */
     public static void addTypeSolverJRE(boolean jreOnly) {
-        if (!typeSolverHasJRE) {
-            combinedTypeSolver.add(new ReflectionTypeSolver(true));
-            typeSolverHasJRE = true;
-        }
+        AnalysisContext.current().addTypeSolverJRE();
     }
 
     /** Obtain the type solver. This resulting object should not be manually modified. */
     protected static TypeSolver getTypeSolver() {
-        return combinedTypeSolver;
+        return AnalysisContext.current().getTypeSolver();
     }
 }
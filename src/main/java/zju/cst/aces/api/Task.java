@@ -68,6 +68,7 @@ public class Task {
             return;
         }
         ProjectParser parser = new ProjectParser(config);
+        parser.setFocalClasses(List.of(className));
         parser.parse();
         log.info("\n==========================\n[ChatUniTest] Generating tests for class: < " + className
                 + "> method: < " + methodName + " > ...");
@@ -136,6 +137,7 @@ public class Task {
             return;
         }
         ProjectParser parser = new ProjectParser(config);
+        parser.setFocalClasses(List.of(className));
         parser.parse();
         log.info("\n==========================\n[ChatUniTest] Generating tests for class < " + className + " > ...");
         try {
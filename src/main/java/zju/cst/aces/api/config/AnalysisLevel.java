@@ -0,0 +1,47 @@
+package zju.cst.aces.api.config;
+
+import slicing.graphs.exceptionsensitive.ESSDG;
+import slicing.graphs.jsysdg.JSysDG;
+import slicing.graphs.sdg.SDG;
+
+/**
+ * The kind of dependence graph built while parsing the project, used to mine method usage examples.
+ * Each level is more precise and more expensive to build than the previous one.
+ */
+public enum AnalysisLevel {
+    /** No graph is built and no usage examples are mined. */
+    NONE,
+    /** A plain system dependence graph. */
+    SDG,
+    /** An exception-sensitive system dependence graph. */
+    ESSDG,
+    /** An object-oriented, exception-sensitive system dependence graph. */
+    JSYSDG;
+
+    public boolean buildsGraph() {
+        return this != NONE;
+    }
+
+    /** Creates an empty graph of this level. Not available for {@link #NONE}. */
+    public SDG newGraph() {
+        switch (this) {
+            case SDG:
+                return new SDG();
+            case ESSDG:
+                return new ESSDG();
+            case JSYSDG:
+                return new JSysDG();
+            default:
+                throw new UnsupportedOperationException("Analysis level " + this + " does not build a graph");
+        }
+    }
+
+    public static AnalysisLevel fromString(String level) {
+        for (AnalysisLevel value : values()) {
+            if (value.name().equalsIgnoreCase(level)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown analysis level: " + level);
+    }
+}
@@ -8,6 +8,7 @@ import com.google.gson.GsonBuilder;
 import lombok.Getter;
 import lombok.Setter;
 import okhttp3.OkHttpClient;
+import slicing.utils.AnalysisContext;
 import zju.cst.aces.api.Validator;
 import zju.cst.aces.api.impl.LoggerImpl;
 import zju.cst.aces.api.Logger;
@@ -76,6 +77,11 @@ public class Config {
     public Path historyPath;
     public Path examplePath;
     public Path symbolFramePath;
+    public AnalysisLevel analysisLevel;
+    public int maxExamplesPerMethod;
+    public int sliceNodeBudget;
+    public long sliceTimeBudget;
+    public AnalysisContext analysisContext;
 
     public String proxy;
     public String hostname;
@@ -128,6 +134,11 @@ public class Config {
         public Path historyPath;
         public Path examplePath;
         public Path symbolFramePath;
+        public AnalysisLevel analysisLevel; // null: decided from the prompt templates
+        public int maxExamplesPerMethod = 5; // call sites sliced per method, <= 0: all of them
+        public int sliceNodeBudget = 50000;
+        public long sliceTimeBudget = 5000; // milliseconds
+        public AnalysisContext analysisContext = new AnalysisContext(); // class graph, type solver and node ids of this project
         public String proxy = "null:-1";
         public String hostname = "null";
         public String port = "-1";
@@ -429,6 +440,31 @@ public class Config {
             return this;
         }
 
+        public ConfigBuilder analysisLevel(AnalysisLevel analysisLevel) {
+            this.analysisLevel = analysisLevel;
+            return this;
+        }
+
+        public ConfigBuilder maxExamplesPerMethod(int maxExamplesPerMethod) {
+            this.maxExamplesPerMethod = maxExamplesPerMethod;
+            return this;
+        }
+
+        public ConfigBuilder sliceNodeBudget(int sliceNodeBudget) {
+            this.sliceNodeBudget = sliceNodeBudget;
+            return this;
+        }
+
+        public ConfigBuilder sliceTimeBudget(long sliceTimeBudget) {
+            this.sliceTimeBudget = sliceTimeBudget;
+            return this;
+        }
+
+        public ConfigBuilder analysisContext(AnalysisContext analysisContext) {
+            this.analysisContext = analysisContext;
+            return this;
+        }
+
         public ConfigBuilder hostname(String hostname) {
             this.hostname = hostname;
             return this;
@@ -477,6 +513,15 @@ public class Config {
                     .build();
         }
 
+        /**
+         * Usage examples are only mined, with the most precise graph, when a prompt template renders them.
+         * Unless an example path is set, the templates receive the mined examples.
+         */
+        public AnalysisLevel detectAnalysisLevel() {
+            return PromptTemplate.templatesReferenceExamples(this.promptPath, this.properties) ?
+                    AnalysisLevel.JSYSDG : AnalysisLevel.NONE;
+        }
+
         public void setValidator(Validator validator) {
             this.validator = validator;
         }
@@ -525,6 +570,18 @@ public class Config {
             config.setHistoryPath(this.historyPath);
             config.setExamplePath(this.examplePath);
             config.setSymbolFramePath(this.symbolFramePath);
+            if (this.analysisLevel != null) {
+                config.setAnalysisLevel(this.analysisLevel);
+            } else {
+                AnalysisLevel level = detectAnalysisLevel();
+                this.log.info("Analysis level not set, using " + level + ": " + (level.buildsGraph() ?
+                        "the prompt templates use example_usage" : "no prompt template uses example_usage"));
+                config.setAnalysisLevel(level);
+            }
+            config.setMaxExamplesPerMethod(this.maxExamplesPerMethod);
+            config.setSliceNodeBudget(this.sliceNodeBudget);
+            config.setSliceTimeBudget(this.sliceTimeBudget);
+            config.setAnalysisContext(this.analysisContext);
             config.setProxy(this.proxy);
             config.setHostname(this.hostname);
             config.setPort(this.port);
@@ -535,6 +592,11 @@ public class Config {
         }
     }
 
+    /** The file where the usage examples mined while parsing the project are stored. */
+    public Path getMinedExamplePath() {
+        return tmpOutput.resolve("methodExampleCode.json");
+    }
+
     public String getRandomKey() {
         Random rand = new Random();
         if (apiKeys.length == 0) {
@@ -558,6 +620,11 @@ public class Config {
         log.info(" TmpOutput Path >>> " + this.getTmpOutput());
         log.info(" Prompt path >>> " + this.getPromptPath());
         log.info(" Example path >>> " + this.getExamplePath());
+        log.info(" Analysis level >>> " + this.getAnalysisLevel());
+        if (this.getAnalysisLevel().buildsGraph()) {
+            log.info(" - Examples per method: " + this.getMaxExamplesPerMethod() + ", Slice budget: "
+                    + this.getSliceNodeBudget() + " nodes, " + this.getSliceTimeBudget() + " ms");
+        }
         log.info(" --- ");
         log.info(" Model >>> " + this.getModel());
         log.info(" Url >>> " + this.getUrl());
@@ -2,11 +2,14 @@ package zju.cst.aces.dto;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import zju.cst.aces.api.config.Config;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +23,44 @@ public class ExampleUsage {
         this.methodUsages  = loadUsages(examplePath, className);
     }
 
+    private ExampleUsage(String className, Map<String, List<String>> methodUsages) {
+        this.className = className;
+        this.methodUsages = methodUsages;
+    }
+
+    /**
+     * Loads the usage examples of a class mined while parsing the project. That file maps the qualified
+     * signature of each method to its examples, and each example holds its code among other details.
+     */
+    public static ExampleUsage fromMinedExamples(Path minedPath, String fullClassName) {
+        String className = fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
+        if (!minedPath.toFile().exists()) {
+            return new ExampleUsage(className, null);
+        }
+        Map<String, List<String>> usages = new HashMap<>();
+        try {
+            Map<String, List<Map<String, Object>>> examples = GSON.fromJson(
+                    Files.readString(minedPath, StandardCharsets.UTF_8),
+                    new TypeToken<Map<String, List<Map<String, Object>>>>() {}.getType());
+            String prefix = fullClassName + ".";
+            for (Map.Entry<String, List<Map<String, Object>>> entry : examples.entrySet()) {
+                String methodSig = entry.getKey().startsWith(prefix) ? entry.getKey().substring(prefix.length()) : null;
+                // Skip the methods of nested classes
+                if (methodSig == null || methodSig.substring(0, methodSig.indexOf('(') + 1).contains(".")) {
+                    continue;
+                }
+                List<String> codes = new ArrayList<>();
+                for (Map<String, Object> example : entry.getValue()) {
+                    codes.add((String) example.get("code"));
+                }
+                usages.put(methodSig, codes);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("In ExampleUsage.fromMinedExamples: " + e);
+        }
+        return new ExampleUsage(className, usages);
+    }
+
     public Map<String, List<String>> loadUsages(Path path, String name) {
         // read examplePath and load methodUsages
         Map<String, List<String>> usages = null;
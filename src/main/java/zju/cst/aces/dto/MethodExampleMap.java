@@ -1,24 +1,30 @@
 package zju.cst.aces.dto;
 
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Method Example Map
+ * Method Example Map. Examples may be added concurrently.
  */
 public class MethodExampleMap {
     Map<String, TreeSet<MEC>> mem;
 
     public MethodExampleMap() {
-        mem = new HashMap<>();
+        mem = new ConcurrentHashMap<>();
     }
 
     public void add(String typeName, String className, String methodName, int lineNum, String code) {
-        TreeSet<MEC> invocations = mem.computeIfAbsent(typeName, k -> new TreeSet<>(new LengthComparator()));
-        invocations.add(new MEC(className, methodName, lineNum, code));
-        mem.put(typeName, invocations);
+        MEC mec = new MEC(className, methodName, lineNum, code);
+        // The set is only modified while its entry is locked
+        mem.compute(typeName, (k, invocations) -> {
+            if (invocations == null) {
+                invocations = new TreeSet<>(new LengthComparator());
+            }
+            invocations.add(mec);
+            return invocations;
+        });
     }
 
     public Map<String, TreeSet<MEC>> getMEM() {
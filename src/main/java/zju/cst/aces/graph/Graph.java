@@ -1,30 +1,58 @@
 package zju.cst.aces.graph;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 public abstract class Graph<N extends Node<?>, E extends Edge<N>> {
     private List<N> nodes;
     private List<E> edges;
+    private Map<N, List<E>> outgoingEdges;
+    private Map<N, List<E>> incomingEdges;
 
     public Graph() {
         this.nodes = new ArrayList<>();
         this.edges = new ArrayList<>();
+        this.outgoingEdges = new HashMap<>();
+        this.incomingEdges = new HashMap<>();
     }
 
+    /** Adds the node, unless it is already in the graph. */
     public void addNode(N node) {
+        if (outgoingEdges.containsKey(node)) {
+            return;
+        }
         nodes.add(node);
+        outgoingEdges.put(node, new ArrayList<>());
+        incomingEdges.put(node, new ArrayList<>());
     }
 
+    /** Adds the edge, and its source and target if they are not in the graph. */
     public void addEdge(E edge) {
+        addNode(edge.getSource());
+        addNode(edge.getTarget());
         edges.add(edge);
+        outgoingEdges.get(edge.getSource()).add(edge);
+        incomingEdges.get(edge.getTarget()).add(edge);
+    }
+
+    public boolean containsNode(N node) {
+        return outgoingEdges.containsKey(node);
     }
 
     public List<N> getNodes() {
-        return nodes;
+        return Collections.unmodifiableList(nodes);
     }
 
     public List<E> getEdges() {
-        return edges;
+        return Collections.unmodifiableList(edges);
+    }
+
+    /** The edges whose source is the given node, in the order they were added. */
+    public List<E> getOutgoingEdges(N node) {
+        return Collections.unmodifiableList(outgoingEdges.getOrDefault(node, Collections.emptyList()));
+    }
+
+    /** The edges whose target is the given node, in the order they were added. */
+    public List<E> getIncomingEdges(N node) {
+        return Collections.unmodifiableList(incomingEdges.getOrDefault(node, Collections.emptyList()));
     }
 }
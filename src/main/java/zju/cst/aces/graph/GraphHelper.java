@@ -2,18 +2,21 @@ package zju.cst.aces.graph;
 
 import java.util.*;
 
-class GraphHelper {
+public class GraphHelper {
+
+    private GraphHelper() {
+        throw new UnsupportedOperationException("This is a static, utility class");
+    }
 
     public static <N extends Node<?>, E extends Edge<N>> Set<N> findPredecessors(Graph<N, E> graph, N startNode) {
         Set<N> predecessors = new HashSet<>();
-        Queue<N> queue = new LinkedList<>();
+        Queue<N> queue = new ArrayDeque<>();
         queue.add(startNode);
 
         while (!queue.isEmpty()) {
             N current = queue.poll();
-            for (E edge : graph.getEdges()) {
-                if (edge.getTarget().equals(current) && !predecessors.contains(edge.getSource())) {
-                    predecessors.add(edge.getSource());
+            for (E edge : graph.getIncomingEdges(current)) {
+                if (predecessors.add(edge.getSource())) {
                     queue.add(edge.getSource());
                 }
             }
@@ -24,15 +27,16 @@ class GraphHelper {
 
     public static <N extends Node<?>, E extends Edge<N>> List<N> dfs(Graph<N, E> graph, N startNode) {
         List<N> visited = new ArrayList<>();
-        Stack<N> stack = new Stack<>();
+        Set<N> visitedSet = new HashSet<>();
+        Deque<N> stack = new ArrayDeque<>();
         stack.push(startNode);
 
         while (!stack.isEmpty()) {
             N current = stack.pop();
-            if (!visited.contains(current)) {
+            if (visitedSet.add(current)) {
                 visited.add(current);
-                for (E edge : graph.getEdges()) {
-                    if (edge.getSource().equals(current)) {
+                for (E edge : graph.getOutgoingEdges(current)) {
+                    if (!visitedSet.contains(edge.getTarget())) {
                         stack.push(edge.getTarget());
                     }
                 }
@@ -44,21 +48,120 @@ class GraphHelper {
 
     public static <N extends Node<?>, E extends Edge<N>> List<N> bfs(Graph<N, E> graph, N startNode) {
         List<N> visited = new ArrayList<>();
-        Queue<N> queue = new LinkedList<>();
+        Set<N> visitedSet = new HashSet<>();
+        Queue<N> queue = new ArrayDeque<>();
+        visitedSet.add(startNode);
         queue.add(startNode);
 
         while (!queue.isEmpty()) {
             N current = queue.poll();
-            if (!visited.contains(current)) {
-                visited.add(current);
-                for (E edge : graph.getEdges()) {
-                    if (edge.getSource().equals(current)) {
-                        queue.add(edge.getTarget());
-                    }
+            visited.add(current);
+            for (E edge : graph.getOutgoingEdges(current)) {
+                if (visitedSet.add(edge.getTarget())) {
+                    queue.add(edge.getTarget());
                 }
             }
         }
 
         return visited;
     }
-}
\ No newline at end of file
+
+    /**
+     * Orders the nodes so that the source of every edge appears before its target.
+     * @throws IllegalArgumentException If the graph contains a cycle.
+     */
+    public static <N extends Node<?>, E extends Edge<N>> List<N> topologicalOrder(Graph<N, E> graph) {
+        Map<N, Integer> inDegree = new HashMap<>();
+        Queue<N> queue = new ArrayDeque<>();
+        for (N node : graph.getNodes()) {
+            int degree = graph.getIncomingEdges(node).size();
+            inDegree.put(node, degree);
+            if (degree == 0) {
+                queue.add(node);
+            }
+        }
+
+        List<N> order = new ArrayList<>(graph.getNodes().size());
+        while (!queue.isEmpty()) {
+            N current = queue.poll();
+            order.add(current);
+            for (E edge : graph.getOutgoingEdges(current)) {
+                if (inDegree.merge(edge.getTarget(), -1, Integer::sum) == 0) {
+                    queue.add(edge.getTarget());
+                }
+            }
+        }
+
+        if (order.size() != graph.getNodes().size()) {
+            throw new IllegalArgumentException("The graph contains a cycle");
+        }
+        return order;
+    }
+
+    /**
+     * Finds the strongly connected components of the graph, with Tarjan's algorithm. The components are
+     * returned in reverse topological order: the targets of the edges leaving a component appear before it,
+     * so dependencies are listed before their dependents when edges point from a node to its dependencies.
+     */
+    public static <N extends Node<?>, E extends Edge<N>> List<Set<N>> stronglyConnectedComponents(Graph<N, E> graph) {
+        Map<N, Integer> index = new HashMap<>();
+        Map<N, Integer> lowLink = new HashMap<>();
+        Set<N> onStack = new HashSet<>();
+        Deque<N> stack = new ArrayDeque<>();
+        List<Set<N>> components = new ArrayList<>();
+
+        for (N root : graph.getNodes()) {
+            if (index.containsKey(root)) {
+                continue;
+            }
+            // Iterative DFS: each frame holds a node and the position of the next outgoing edge to explore
+            Deque<N> callStack = new ArrayDeque<>();
+            Deque<Iterator<E>> edgeStack = new ArrayDeque<>();
+            visit(root, index, lowLink, onStack, stack);
+            callStack.push(root);
+            edgeStack.push(graph.getOutgoingEdges(root).iterator());
+
+            while (!callStack.isEmpty()) {
+                N current = callStack.peek();
+                Iterator<E> edges = edgeStack.peek();
+                if (edges.hasNext()) {
+                    N target = edges.next().getTarget();
+                    if (!index.containsKey(target)) {
+                        visit(target, index, lowLink, onStack, stack);
+                        callStack.push(target);
+                        edgeStack.push(graph.getOutgoingEdges(target).iterator());
+                    } else if (onStack.contains(target)) {
+                        lowLink.put(current, Math.min(lowLink.get(current), index.get(target)));
+                    }
+                    continue;
+                }
+
+                callStack.pop();
+                edgeStack.pop();
+                if (!callStack.isEmpty()) {
+                    N parent = callStack.peek();
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(current)));
+                }
+                if (lowLink.get(current).equals(index.get(current))) {
+                    Set<N> component = new LinkedHashSet<>();
+                    N member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (member != current);
+                    components.add(component);
+                }
+            }
+        }
+
+        return components;
+    }
+
+    private static <N> void visit(N node, Map<N, Integer> index, Map<N, Integer> lowLink, Set<N> onStack, Deque<N> stack) {
+        index.put(node, index.size());
+        lowLink.put(node, index.get(node));
+        stack.push(node);
+        onStack.add(node);
+    }
+}
@@ -0,0 +1,245 @@
+package zju.cst.aces.parser;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * An index of the classes contained in a jar or a directory of compiled classes, built by reading
+ * the class headers with ASM (no code is parsed and no class is loaded).
+ * For each class, the index stores its super types and the names and descriptors of its members.
+ * <br/>
+ * Indexes of jars are persisted in a cache directory, in a file named after the SHA-1 of the jar,
+ * so that each dependency is only scanned once. The mapping from jar location (path, size and
+ * modification time) to hash is persisted too, to avoid re-reading unchanged jars on every run.
+ */
+public class BytecodeIndex {
+    protected static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    protected static final String HASHES_FILE = "hashes.json";
+    protected static final Type HASHES_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    protected static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    /** The jar or directory that was indexed. */
+    protected transient Path origin;
+    /** Binary class name (e.g. {@code a.b.Outer$Inner}) to class summary. */
+    protected final Map<String, ClassEntry> classes = new HashMap<>();
+
+    protected BytecodeIndex(Path origin) {
+        this.origin = origin;
+    }
+
+    public Path getOrigin() {
+        return origin;
+    }
+
+    public boolean contains(String binaryName) {
+        return classes.containsKey(binaryName);
+    }
+
+    public Optional<ClassEntry> get(String binaryName) {
+        return Optional.ofNullable(classes.get(binaryName));
+    }
+
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(classes.keySet());
+    }
+
+    /** Indexes a directory of compiled classes, such as {@code target/classes}. Directory indexes are
+     *  never persisted, as their contents change with every compilation. */
+    public static BytecodeIndex ofDirectory(Path directory) throws IOException {
+        BytecodeIndex index = new BytecodeIndex(directory);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.filter(p -> p.toString().endsWith(".class"))::iterator)
+                try (InputStream in = Files.newInputStream(path)) {
+                    index.read(in);
+                }
+        }
+        return index;
+    }
+
+    /** Indexes a jar, reusing a previously persisted index from {@code cacheDir} if the jar's
+     *  contents have not changed. If {@code cacheDir} is null, nothing is persisted. */
+    public static BytecodeIndex ofJar(Path jar, Path cacheDir) throws IOException {
+        if (cacheDir == null)
+            return scanJar(jar);
+        Files.createDirectories(cacheDir);
+        Path hashesFile = cacheDir.resolve(HASHES_FILE);
+        String location = jar.toAbsolutePath() + "|" + Files.size(jar) + "|" + Files.getLastModifiedTime(jar).toMillis();
+        Map<String, String> hashes;
+        synchronized (BytecodeIndex.class) {
+            hashes = readHashes(hashesFile);
+        }
+        String hash = hashes.get(location);
+        if (hash == null)
+            hash = sha1(jar);
+        Path indexFile = cacheDir.resolve(hash + ".json");
+        BytecodeIndex index = null;
+        if (Files.exists(indexFile)) {
+            try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                index = GSON.fromJson(reader, BytecodeIndex.class);
+            } catch (RuntimeException ignored) {
+                // Corrupted cache file, scan the jar again
+            }
+        }
+        if (index == null) {
+            index = scanJar(jar);
+            try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+                GSON.toJson(index, writer);
+            }
+        }
+        index.origin = jar;
+        if (!hashes.containsKey(location)) {
+            synchronized (BytecodeIndex.class) {
+                hashes = readHashes(hashesFile);
+                hashes.put(location, hash);
+                try (Writer writer = Files.newBufferedWriter(hashesFile, StandardCharsets.UTF_8)) {
+                    GSON.toJson(hashes, HASHES_TYPE, writer);
+                }
+            }
+        }
+        return index;
+    }
+
+    protected static BytecodeIndex scanJar(Path jar) throws IOException {
+        BytecodeIndex index = new BytecodeIndex(jar);
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                // Multi-release entries (META-INF/versions) are skipped, the base version is enough for resolution
+                if (!entry.getName().endsWith(".class") || entry.getName().startsWith("META-INF/"))
+                    continue;
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    index.read(in);
+                }
+            }
+        }
+        return index;
+    }
+
+    protected static Map<String, String> readHashes(Path hashesFile) throws IOException {
+        if (!Files.exists(hashesFile))
+            return new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(hashesFile, StandardCharsets.UTF_8)) {
+            Map<String, String> hashes = GSON.fromJson(reader, HASHES_TYPE);
+            return hashes != null ? hashes : new HashMap<>();
+        } catch (RuntimeException e) {
+            return new HashMap<>();
+        }
+    }
+
+    protected static String sha1(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1);
+            }
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest.digest())
+                builder.append(String.format("%02x", b));
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Reads the header and members of a single class file and adds it to this index. */
+    protected void read(InputStream in) throws IOException {
+        ClassReader reader;
+        try {
+            reader = new ClassReader(in);
+        } catch (IllegalArgumentException e) {
+            return; // Unsupported class file version
+        }
+        reader.accept(new ClassVisitor(Opcodes.ASM9) {
+            ClassEntry entry;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                if (name.endsWith("module-info") || name.endsWith("package-info") || (access & Opcodes.ACC_SYNTHETIC) != 0)
+                    return;
+                entry = new ClassEntry(access, toBinaryName(superName), interfaces == null ? new String[0] :
+                        Arrays.stream(interfaces).map(BytecodeIndex::toBinaryName).toArray(String[]::new));
+                classes.put(toBinaryName(name), entry);
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                if (entry != null && (access & Opcodes.ACC_SYNTHETIC) == 0)
+                    entry.fields.add(name + ":" + descriptor);
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                if (entry != null && (access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) == 0)
+                    entry.methods.add(name + descriptor);
+                return null;
+            }
+        }, PARSING_OPTIONS);
+    }
+
+    /** Converts an internal name ({@code a/b/Outer$Inner}) to a binary name ({@code a.b.Outer$Inner}). */
+    protected static String toBinaryName(String internalName) {
+        return internalName == null ? null : internalName.replace('/', '.');
+    }
+
+    /** A summary of a compiled class: its access flags, super types and members. */
+    public static class ClassEntry {
+        protected final int access;
+        protected final String superName;
+        protected final String[] interfaces;
+        /** Field names and descriptors, with the format {@code name:descriptor}. */
+        protected final List<String> fields = new ArrayList<>();
+        /** Method names and descriptors, with the format {@code name(args)ret}. */
+        protected final List<String> methods = new ArrayList<>();
+
+        protected ClassEntry(int access, String superName, String[] interfaces) {
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = interfaces;
+        }
+
+        public int getAccess() {
+            return access;
+        }
+
+        public Optional<String> getSuperName() {
+            return Optional.ofNullable(superName);
+        }
+
+        public List<String> getInterfaces() {
+            return List.of(interfaces);
+        }
+
+        public List<String> getFields() {
+            return Collections.unmodifiableList(fields);
+        }
+
+        public List<String> getMethods() {
+            return Collections.unmodifiableList(methods);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package zju.cst.aces.parser;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+import zju.cst.aces.api.config.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A type solver for compiled code: the project's build output and its dependency jars.
+ * <br/>
+ * Which classes exist, and where, is answered by a {@link BytecodeIndex} per classpath entry, read
+ * with ASM and persisted across runs. A jar is only opened when one of its classes is actually
+ * requested; at that point the class is loaded through Javassist, which is the bytecode model that
+ * JavaParser's symbol solver understands. Lookups of types that are not on the classpath never
+ * touch the disk.
+ */
+public class BytecodeTypeSolver implements TypeSolver {
+    /** Name of the directory, inside {@link Config#getTmpOutput()}, that holds the persisted indexes. */
+    public static final String INDEX_DIR = "bytecode-index";
+
+    protected final ClassPool classPool = new ClassPool(false);
+    /** Binary class name to the index of the classpath entry that contains it. The first entry wins. */
+    protected final Map<String, BytecodeIndex> classIndex = new HashMap<>();
+    /** Classpath entries that have already been appended to the {@link #classPool}. */
+    protected final Set<Path> openedOrigins = new HashSet<>();
+    protected final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> solvedTypes = new ConcurrentHashMap<>();
+    protected TypeSolver parent;
+
+    /** Creates a solver for the given classpath entries (directories or jars). Jar indexes are persisted
+     *  in {@code cacheDir}, or not at all if it is null. Entries that don't exist are ignored. */
+    public BytecodeTypeSolver(Collection<Path> classPath, Path cacheDir) throws IOException {
+        for (Path entry : classPath) {
+            if (!Files.exists(entry))
+                continue;
+            BytecodeIndex index = Files.isDirectory(entry) ?
+                    BytecodeIndex.ofDirectory(entry) :
+                    BytecodeIndex.ofJar(entry, cacheDir);
+            for (String className : index.getClassNames())
+                classIndex.putIfAbsent(className, index);
+        }
+    }
+
+    /** Creates a solver for the project's build path and the dependencies in {@link Config#getClassPaths()}. */
+    public static BytecodeTypeSolver forProject(Config config) throws IOException {
+        Set<Path> classPath = new LinkedHashSet<>();
+        classPath.add(config.getProject().getBuildPath());
+        if (config.getClassPaths() != null)
+            config.getClassPaths().stream().map(Paths::get).forEach(classPath::add);
+        return new BytecodeTypeSolver(classPath, config.getTmpOutput().resolve(INDEX_DIR));
+    }
+
+    /** The summary of a class, without loading it. */
+    public Optional<BytecodeIndex.ClassEntry> getClassEntry(String binaryName) {
+        BytecodeIndex index = classIndex.get(binaryName);
+        return index == null ? Optional.empty() : index.get(binaryName);
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        Objects.requireNonNull(parent);
+        if (this.parent != null)
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        if (parent == this)
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        SymbolReference<ResolvedReferenceTypeDeclaration> ref = solvedTypes.get(name);
+        if (ref == null) {
+            ref = solveType0(name);
+            solvedTypes.put(name, ref);
+        }
+        return ref;
+    }
+
+    /** Tries every interpretation of the canonical name as a binary name: {@code a.b.C.D} may be
+     *  {@code a.b.C.D}, {@code a.b.C$D}, {@code a.b$C$D}... */
+    protected SymbolReference<ResolvedReferenceTypeDeclaration> solveType0(String name) {
+        String binaryName = name;
+        while (true) {
+            BytecodeIndex index = classIndex.get(binaryName);
+            if (index != null) {
+                try {
+                    return SymbolReference.solved(JavassistFactory.toTypeDeclaration(load(index, binaryName), getRoot()));
+                } catch (NotFoundException ignored) {
+                    return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+                }
+            }
+            int lastDot = binaryName.lastIndexOf('.');
+            if (lastDot < 0)
+                return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+            binaryName = binaryName.substring(0, lastDot) + '$' + binaryName.substring(lastDot + 1);
+        }
+    }
+
+    /** Loads a class through Javassist, opening its classpath entry if it hadn't been opened yet. */
+    protected synchronized CtClass load(BytecodeIndex index, String binaryName) throws NotFoundException {
+        if (openedOrigins.add(index.getOrigin()))
+            classPool.appendClassPath(index.getOrigin().toString());
+        return classPool.get(binaryName);
+    }
+}
@@ -21,6 +21,7 @@ import com.google.gson.Gson;
 import org.jetbrains.annotations.NotNull;
 import slicing.graphs.CallGraph;
 import slicing.graphs.sdg.SDG;
+import slicing.utils.ResolutionCache;
 import zju.cst.aces.api.Logger;
 import zju.cst.aces.api.Project;
 import zju.cst.aces.dto.ClassInfo;
@@ -522,7 +523,7 @@ public class ClassParser {
                     continue;
                 }
                 if (p.getType().isArrayType()) {
-                    String dependentType = p.resolve().getType().asArrayType().getComponentType().describe();
+                    String dependentType = ResolutionCache.resolve(p).getType().asArrayType().getComponentType().describe();
                     dependentMethods.put(dependentType, new HashSet<String>());
                     continue;
                 } else if (p.getTypeAsString().split("<")[0].endsWith("Map")
@@ -530,7 +531,7 @@ public class ClassParser {
                         || p.getTypeAsString().split("<")[0].endsWith("Set")) {
                     continue;
                 } else if (p.getType().getChildNodes().size() == 1) {
-                    String dependentType = p.resolve().describeType();
+                    String dependentType = ResolutionCache.resolve(p).describeType();
                     dependentMethods.put(dependentType, new HashSet<String>());
                 }
             } catch (Exception e) {
@@ -539,7 +540,7 @@ public class ClassParser {
         }
         for (MethodCallExpr m : methodCalls) {
             try {
-                ResolvedMethodDeclaration md = m.resolve();
+                ResolvedMethodDeclaration md = ResolutionCache.resolve(m);
                 String dependentType = md.declaringType().getQualifiedName();
                 String mSig = getParamTypeInSig(md); // change parameters' type to non-qualified name
                 Set<String> invocations = dependentMethods.get(dependentType);
@@ -721,7 +722,7 @@ public class ClassParser {
                 if (!expr.getType().isReferenceType()) {
                     continue;
                 }
-                ResolvedReferenceTypeDeclaration objType = expr.resolve().declaringType();
+                ResolvedReferenceTypeDeclaration objType = ResolutionCache.resolve(expr).declaringType();
                 String typeName = objType.getQualifiedName();
 
                 ExpressionStmt stmt = findExpressionStmt(expr);
@@ -774,7 +775,7 @@ public class ClassParser {
 
         for (MethodCallExpr expr : methodCalls) {
             try {
-                ResolvedMethodDeclaration md = expr.resolve();
+                ResolvedMethodDeclaration md = ResolutionCache.resolve(expr);
 
                 // save return type
                 if (!md.getReturnType().isReferenceType()) {
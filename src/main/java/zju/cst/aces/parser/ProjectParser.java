@@ -6,22 +6,37 @@ import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ParserConfiguration.LanguageLevel;
 import com.github.javaparser.Position;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedConstructorDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
 import slicing.graphs.CallGraph;
 import slicing.graphs.CallGraph.Edge;
-import slicing.graphs.CallGraph.Vertex;
-import slicing.graphs.jsysdg.JSysDG;
+import slicing.graphs.sdg.BuildScope;
 import slicing.graphs.sdg.SDG;
+import slicing.nodes.GraphNode;
 import slicing.slicing.MultiVariableCriterion;
 import slicing.slicing.Slice;
+import slicing.slicing.SliceBudget;
+import slicing.slicing.SliceCache;
+import slicing.slicing.SlicePruneVisitor;
+import slicing.slicing.SlicingCriterion;
+import slicing.utils.ResolutionCache;
+import slicing.utils.AnalysisContext;
+import slicing.utils.NodeHashSet;
 import zju.cst.aces.api.Project;
 import zju.cst.aces.api.config.Config;
 import zju.cst.aces.dto.MethodExampleMap;
@@ -35,17 +50,24 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 public class ProjectParser {
 
-    public static JavaParser parser;
+    public JavaParser parser;
     public Path srcFolderPath;
     public Path outputPath;
     public Map<String, Set<String>> classNameMap = new HashMap<>();
-    public static Config config;
+    public Config config;
     public int classCount = 0;
     public int methodCount = 0;
+    /** Simple or fully qualified names of the classes under test; null means the whole project. */
+    private Collection<String> focalClasses;
+    /** Name of the directory, inside {@link Config#getTmpOutput()}, that holds the slices stored for later runs. */
+    public static final String SLICE_CACHE_DIR = "slices";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
 
     public ProjectParser(Config config) {
         this.srcFolderPath = Paths.get(config.getProject().getBasedir().getAbsolutePath(), "src", "main", "java");
@@ -55,14 +77,68 @@ public class ProjectParser {
     }
 
     /**
-     * Parse the project.
+     * Resolve the compilation units of the project through the symbol resolver of its analysis context,
+     * whose type solver sees the sources, the JRE, and the compiled classes and dependency jars.
+     */
+    private void configureSymbolResolution() {
+        AnalysisContext context = config.getAnalysisContext();
+        if (context.registerTypeSolverPath(srcFolderPath)) {
+            if (config.getParserFacade() != null) {
+                TypeSolver sourceSolver = config.getParserFacade().getTypeSolver().getRoot();
+                if (sourceSolver != context.getTypeSolver()) {
+                    context.addTypeSolver(sourceSolver);
+                }
+            } else if (Files.isDirectory(srcFolderPath)) {
+                context.addTypeSolver(new JavaParserTypeSolver(srcFolderPath));
+            }
+            context.addTypeSolverJRE();
+        }
+        registerBytecodeTypeSolver(context);
+        if (parser != null) {
+            parser.getParserConfiguration().setSymbolResolver(context.getSymbolResolver());
+        }
+    }
+
+    /**
+     * Make the compiled classes and dependency jars available to the type solver, through
+     * a {@link BytecodeTypeSolver} whose jar indexes are persisted in tmpOutput.
+     */
+    private void registerBytecodeTypeSolver(AnalysisContext context) {
+        if (config.getProject().getBuildPath() == null || !context.registerTypeSolverPath(config.getProject().getBuildPath())) {
+            return;
+        }
+        try {
+            context.addTypeSolver(BytecodeTypeSolver.forProject(config));
+        } catch (IOException | RuntimeException e) {
+            config.getLog().warn("Cannot index compiled classes for type solving: " + e);
+        }
+    }
+
+    /**
+     * Limit the dependence graph used to mine usage examples to the given classes, their callers
+     * and everything they may call, instead of the whole project.
+     */
+    public void setFocalClasses(Collection<String> focalClasses) {
+        this.focalClasses = focalClasses;
+    }
+
+    /**
+     * Parse the project, within the analysis context of its configuration.
      */
     public void parse() {
+        config.getAnalysisContext().run(this::parseProject);
+    }
+
+    private void parseProject() {
         List<String> classPaths = scanSourceDirectory(config.getProject());
         if (classPaths.isEmpty()) {
             config.getLogger().warn("No java file found in " + srcFolderPath);
             return;
         }
+        configureSymbolResolution();
+        // Resolutions are shared between the SDG construction and the class parsers
+        config.getAnalysisContext().getResolutionCache().clear();
+        config.getAnalysisContext().getExceptionTypeCache().clear();
         NodeList<CompilationUnit> cus = new NodeList<>();
         for (String classPath : classPaths) {
             File file = new File(classPath);
@@ -74,7 +150,12 @@ public class ProjectParser {
                 throw new RuntimeException("In ProjectParser.parse: " + e);
             }
         }
-        MethodExampleMap methodExampleMap = createMethodExampleMap(cus);
+        MethodExampleMap methodExampleMap = null;
+        if (config.getAnalysisLevel() != null && config.getAnalysisLevel().buildsGraph()) {
+            methodExampleMap = createMethodExampleMap(cus);
+        } else {
+            config.getLog().info("Analysis level is " + config.getAnalysisLevel() + ", skip creating method example map");
+        }
 
         for (var cu : cus) {
             try {
@@ -100,74 +181,324 @@ public class ProjectParser {
         }
         exportClassMapping();
 //        exportOCC();
-        exportMethodExampleMap(methodExampleMap);
+        if (methodExampleMap != null) {
+            exportMethodExampleMap(methodExampleMap);
+        }
         exportJson(config.getClassNameMapPath(), classNameMap);
+        config.getAnalysisContext().getResolutionCache().clear();
+        config.getAnalysisContext().getExceptionTypeCache().clear();
         config.getLogger().info("\nParsed classes: " + classCount + "\nParsed methods: " + methodCount);
     }
 
+    /**
+     * The dependence graph of the given compilation units. If a graph was built earlier in the same
+     * analysis context with the same options, it is {@link SDG#update(NodeList) updated}, so only
+     * the files that changed since then are analysed again. The previous graph is released from the
+     * context while it is updated, and replaced by the result. Graphs limited to the focal classes
+     * can't be updated, and are not kept.
+     */
     private SDG createSDG(NodeList<CompilationUnit> cus) {
-        SDG sdg = new JSysDG();
+        AnalysisContext context = config.getAnalysisContext();
+        String options = createGraphOptions();
+        Optional<SDG> previous = context.takeLastGraph(options);
+        SDG sdg;
+        if (previous.isPresent()) {
+            config.getLog().info("Updating the dependence graph built previously");
+            sdg = previous.get();
+            sdg.update(cus);
+        } else {
+            sdg = buildSDG(cus);
+        }
+        context.setLastGraph(focalClasses == null ? sdg : null, options);
+        return sdg;
+    }
+
+    private SDG buildSDG(NodeList<CompilationUnit> cus) {
+        SDG sdg = config.getAnalysisLevel().newGraph();
+        if (focalClasses != null) {
+            sdg.setScope(BuildScope.ofTypes(focalClasses));
+        }
+        if (config.isEnableMultithreading()) {
+            sdg.setSummaryParallelism(Runtime.getRuntime().availableProcessors());
+        }
         sdg.build(cus);
         return sdg;
     }
 
     private MethodExampleMap createMethodExampleMap(NodeList<CompilationUnit> cus) {
         config.getLogger().info("Starting to create method example map...");
+        Path cacheFile = config.getTmpOutput().resolve(SLICE_CACHE_DIR)
+                .resolve(config.getAnalysisLevel().name().toLowerCase() + ".bin");
+        String options = createGraphOptions();
+        Optional<SliceCache> cache = SliceCache.read(cacheFile, options);
+        if (cache.isPresent() && cache.get().attach(cus).isUnchanged()) {
+            config.getLog().info("Sources are unchanged, reusing the slices stored in " + cacheFile);
+            return createMethodExampleMap(cache.get());
+        }
         MethodExampleMap methodExampleMap = new MethodExampleMap();
         SDG sdg = createSDG(cus);
 
-        AtomicInteger cuIndex = new AtomicInteger();
         AtomicInteger methodIndex = new AtomicInteger();
-        int totalMethods = slicing.graphs.ClassGraph.getInstance().getMethodDeclarationMap().size();
-        cus.forEach(cu -> {
+        // Collect every call site first, so that all of them are sliced in a few batches.
+        // An updated graph keeps the ASTs of unchanged files, so its compilation units are used.
+        List<CallSite> callSites = new ArrayList<>();
+        sdg.getCompilationUnits().forEach(cu -> {
             cu.findAll(CallableDeclaration.class).forEach(callable -> {
                 Set<Edge<?>> edges = findEdgeByCallGraph(callable, sdg.getCallGraph());
                 if (!edges.isEmpty()) {
-                    config.getLogger().info("Processing method: [ " + callable.getNameAsString() + " ]" + " total: " + methodIndex.getAndIncrement() + " / " + totalMethods);
-                    edges.forEach(edge -> {
-                        config.getLogger().info("Processing edge: " + edge.getSource().getNameAsString() + " -> " + edge.getTarget().getNameAsString());
-                        if (edge.getTarget().equals(callable)) {
-                            if (! (edge.getCall() instanceof Expression)) {
-                                return;
-                            }
-                            Expression callSite = (Expression) edge.getCall();
-                            int callSiteLine = callSite.getBegin().orElse(new Position(0, 0)).line;
-                            List<String> arguments = createStringArgumets(callSite);
-
-                            CallableDeclaration<?> caller = edge.getSource();
-                            CompilationUnit callerCompilationUnit = findClassByCallable(caller);
-                            String callerClassFullName = callerCompilationUnit.getType(0).getFullyQualifiedName().get();
-
-                            if (!arguments.isEmpty()) {
-                                var sc = new MultiVariableCriterion(callerClassFullName, callSiteLine, arguments);
-                                config.getLogger().info("Slicing method: " + getSignatureByCallable(callable) + " at callsite: < " + callSite + " >");
-                                Slice slice = sdg.slice(sc);
-                                if (!slice.toAst().isEmpty()) {
-                                    String code = findCodeBySlice(slice, callerCompilationUnit.getType(0).getNameAsString());
-                                    if (code != null) {
-                                        methodExampleMap.add(getQualifiedSignatureByCallable(callable),
-                                                callerClassFullName,
-                                                getSignatureByCallable(caller),
-                                                callSiteLine,
-                                                code);
-                                    }
-                                }
-                            }
-                        }
-                    });
+                    methodIndex.incrementAndGet();
+                    addCallSites(callable, edges, callSites);
                 }
             });
         });
+        // Call sites are found per callee; grouping them by caller lets consecutive criteria reuse their slices
+        callSites.sort(Comparator.comparing((CallSite callSite) -> callSite.callerClassFullName)
+                .thenComparingInt(callSite -> callSite.caller.getBegin().map(position -> position.line).orElse(0)));
+        config.getLog().info("Found " + callSites.size() + " call sites to slice, from " + methodIndex.get() + " called methods");
+
+        Map<SlicingCriterion, Collection<Node>> slices = new LinkedHashMap<>();
+        List<CallSite> uncachedCallSites = cache.isPresent()
+                ? reuseCachedSlices(cache.get().attach(sdg.getCompilationUnits()), sdg, callSites, methodExampleMap, slices)
+                : callSites;
+        mineExamples(sdg, uncachedCallSites, methodExampleMap)
+                .forEach((criterion, slice) -> slices.put(criterion, SliceCache.astNodesOf(slice)));
+        try {
+            List<SliceCache.StoredCall> storedCalls = callSites.stream()
+                    .map(callSite -> new SliceCache.StoredCall(callSite.caller, callSite.callee, callSite.call))
+                    .collect(Collectors.toList());
+            SliceCache.write(sdg.getCompilationUnits(), storedCalls, slices, sdg.getCallGraph(), options, cacheFile);
+        } catch (IOException e) {
+            config.getLog().warn("Failed to store the slices: " + e.getMessage());
+        }
+        return methodExampleMap;
+    }
+
+    /**
+     * Adds the examples of the call sites whose slices stored by a previous run are still valid, and
+     * collects those slices. Only the files that changed since then invalidate the slices that depend
+     * on them. Returns the call sites that must be sliced again.
+     */
+    private List<CallSite> reuseCachedSlices(SliceCache cache, SDG sdg, List<CallSite> callSites,
+                                             MethodExampleMap methodExampleMap, Map<SlicingCriterion, Collection<Node>> slices) {
+        List<CallSite> uncached = new ArrayList<>();
+        SlicePruneVisitor pruneVisitor = new SlicePruneVisitor();
+        for (CallSite callSite : callSites) {
+            Optional<NodeHashSet<Node>> nodes = cache.sliceAstNodes(callSite.criterion, sdg.getCallGraph());
+            if (nodes.isEmpty()) {
+                uncached.add(callSite);
+                continue;
+            }
+            slices.put(callSite.criterion, nodes.get());
+            pruneVisitor.pruneCopy(callSite.callerCompilationUnit.getType(0), nodes.get())
+                    .map(Node::toString)
+                    .ifPresent(code -> addExample(methodExampleMap, callSite, code));
+        }
+        config.getLog().info("Reusing the stored slices of " + (callSites.size() - uncached.size()) + " call sites, "
+                + uncached.size() + " must be sliced again");
+        return uncached;
+    }
+
+    /**
+     * Slices the graph at each call site and adds the resulting examples to the map. The graph is only read
+     * here, so with multithreading enabled the call sites are split in one batch per thread, and each batch
+     * is sliced and printed concurrently. The call sites are sorted by caller, so that the criteria of each
+     * procedure are sliced together, in the same batch, and share most of their work.
+     */
+    private Map<SlicingCriterion, Slice> mineExamples(SDG sdg, List<CallSite> callSites, MethodExampleMap methodExampleMap) {
+        int threads = config.isEnableMultithreading() ? Runtime.getRuntime().availableProcessors() : 1;
+        int batchSize = Math.max(1, (callSites.size() + threads - 1) / threads);
+        SliceBudget budget = new SliceBudget(
+                config.getSliceNodeBudget() > 0 ? config.getSliceNodeBudget() : Integer.MAX_VALUE,
+                config.getSliceTimeBudget() > 0 ? config.getSliceTimeBudget() : Long.MAX_VALUE);
+        AtomicInteger minedCount = new AtomicInteger();
+        Queue<String> exceeded = new ConcurrentLinkedQueue<>();
+        int logStep = Math.max(1, callSites.size() / 10);
+        // Locating the criteria may resolve symbols, which the symbol solver can't do concurrently
+        Map<SlicingCriterion, Set<GraphNode<?>>> located = sdg.getAnalysisContext().call(() ->
+                sdg.locateAll(callSites.stream().map(cs -> cs.criterion).collect(Collectors.toList())));
+        List<Callable<Map<SlicingCriterion, Slice>>> batches = new ArrayList<>();
+        for (int start = 0; start < callSites.size(); start += batchSize) {
+            List<CallSite> batch = callSites.subList(start, Math.min(start + batchSize, callSites.size()));
+            Map<SlicingCriterion, Set<GraphNode<?>>> batchCriteria = new LinkedHashMap<>();
+            for (CallSite callSite : batch) {
+                Set<GraphNode<?>> nodes = located.get(callSite.criterion);
+                if (nodes != null) {
+                    batchCriteria.put(callSite.criterion, nodes);
+                }
+            }
+            batches.add(() -> {
+                Map<SlicingCriterion, Slice> slices = sdg.getAnalysisContext().call(() -> sdg.sliceLocated(batchCriteria, budget));
+                for (CallSite callSite : batch) {
+                    Slice slice = slices.get(callSite.criterion);
+                    if (slice != null && slice.isBudgetExceeded()) {
+                        exceeded.add(callSite.callerSignature + " (line " + callSite.line + ") calling "
+                                + callSite.calleeSignature + ": " + slice.getBudgetExceededReason());
+                    } else if (slice != null && !slice.isEmpty()) {
+                        String code = findCodeBySlice(slice, callSite.callerCompilationUnit.getType(0));
+                        if (code != null) {
+                            addExample(methodExampleMap, callSite, code);
+                        }
+                    }
+                    int mined = minedCount.incrementAndGet();
+                    if (mined % logStep == 0 || mined == callSites.size()) {
+                        config.getLog().info("Sliced call sites: [ " + mined + " / " + callSites.size() + " ]");
+                    }
+                }
+                return slices;
+            });
+        }
+        Map<SlicingCriterion, Slice> slices = new LinkedHashMap<>();
+        runBatches(batches, slices);
+        if (!exceeded.isEmpty()) {
+            config.getLog().info("Skipped " + exceeded.size() + " call sites whose slices exceeded the budget");
+            exceeded.forEach(site -> config.getLog().debug(" - " + site));
+        }
+        // Abandoned slices are incomplete, and must not be stored
+        slices.values().removeIf(Slice::isBudgetExceeded);
+        return slices;
+    }
+
+    private void runBatches(List<Callable<Map<SlicingCriterion, Slice>>> batches, Map<SlicingCriterion, Slice> slices) {
+        if (batches.size() <= 1) {
+            for (Callable<Map<SlicingCriterion, Slice>> batch : batches) {
+                try {
+                    slices.putAll(batch.call());
+                } catch (Exception e) {
+                    throw new RuntimeException("In ProjectParser.mineExamples: " + e);
+                }
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(batches.size());
+        try {
+            for (Future<Map<SlicingCriterion, Slice>> future : executor.invokeAll(batches)) {
+                slices.putAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("In ProjectParser.mineExamples: " + e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("In ProjectParser.mineExamples: " + e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Mines the examples from the slices stored by a previous run, without building the dependence graph again.
+     *  The call sites selected by that run are used, in the same order. */
+    private MethodExampleMap createMethodExampleMap(SliceCache cache) {
+        MethodExampleMap methodExampleMap = new MethodExampleMap();
+        List<CallSite> callSites = new ArrayList<>();
+        for (int i = 0; i < cache.callCount(); i++) {
+            cache.call(i).ifPresent(call -> addCallSite(call.getCallee(), call.getCaller(), call.getCall(), callSites));
+        }
+        SlicePruneVisitor pruneVisitor = new SlicePruneVisitor();
+        for (CallSite callSite : callSites) {
+            cache.sliceAstNodes(callSite.criterion, null)
+                    .flatMap(nodes -> pruneVisitor.pruneCopy(callSite.callerCompilationUnit.getType(0), nodes))
+                    .map(Node::toString)
+                    .ifPresent(code -> addExample(methodExampleMap, callSite, code));
+        }
         return methodExampleMap;
     }
 
-    private String findCodeBySlice(Slice slice, String callerClassFullName) {
-        for (CompilationUnit cu : slice.toAst()) {
-            if (cu.getType(0).getNameAsString().equals(callerClassFullName)) {
-                return cu.toString();
+    /** Identifies the options the dependence graph is built and sliced with. */
+    private String createGraphOptions() {
+        return config.getAnalysisLevel() + ";" + (focalClasses == null ? "*" : new TreeSet<>(focalClasses))
+                + ";" + config.getMaxExamplesPerMethod() + ";" + config.getSliceNodeBudget() + ";" + config.getSliceTimeBudget();
+    }
+
+    /**
+     * Registers the calls to {@code callable} among the given edges. Only the shortest example of each method is
+     * used, so at most {@link Config#getMaxExamplesPerMethod()} call sites are sliced per method: those in the
+     * shortest callers, which tend to produce the shortest slices.
+     */
+    private void addCallSites(CallableDeclaration<?> callable, Set<Edge<?>> edges, List<CallSite> callSites) {
+        List<Edge<?>> calls = new ArrayList<>();
+        for (Edge<?> edge : edges) {
+            if (edge.getTarget().equals(callable)) {
+                calls.add(edge);
+            }
+        }
+        int limit = config.getMaxExamplesPerMethod() > 0 ? config.getMaxExamplesPerMethod() : Integer.MAX_VALUE;
+        if (calls.size() > limit) {
+            calls.sort(Comparator.comparingInt(edge -> callableSize(edge.getSource())));
+        }
+        int added = 0;
+        for (Edge<?> edge : calls) {
+            if (added >= limit) {
+                break;
+            }
+            if (addCallSite(callable, edge.getSource(), edge.getCall(), callSites)) {
+                added++;
             }
         }
-        return null;
+    }
+
+    /** The number of lines of a declaration, or the maximum value if unknown. */
+    private int callableSize(CallableDeclaration<?> callable) {
+        return callable.getRange().map(range -> range.end.line - range.begin.line + 1).orElse(Integer.MAX_VALUE);
+    }
+
+    /** Creates the slicing criterion for a call to {@code callable} and registers it, if the call has any argument. */
+    private boolean addCallSite(CallableDeclaration<?> callable, CallableDeclaration<?> caller, Object call, List<CallSite> callSites) {
+        if (! (call instanceof Expression)) {
+            return false;
+        }
+        Expression callSite = (Expression) call;
+        int callSiteLine = callSite.getBegin().orElse(new Position(0, 0)).line;
+        List<String> arguments = createStringArgumets(callSite);
+
+        CompilationUnit callerCompilationUnit = findClassByCallable(caller);
+        String callerClassFullName = callerCompilationUnit.getType(0).getFullyQualifiedName().get();
+
+        if (!arguments.isEmpty()) {
+            var sc = new MultiVariableCriterion(callerClassFullName, callSiteLine, arguments);
+            // Signatures are resolved here, as the symbol solver may not be used concurrently
+            callSites.add(new CallSite(callable, caller, callSite, getQualifiedSignatureByCallable(callable),
+                    getSignatureByCallable(caller), callerCompilationUnit, callerClassFullName, callSiteLine, sc));
+            return true;
+        }
+        return false;
+    }
+
+    private void addExample(MethodExampleMap methodExampleMap, CallSite callSite, String code) {
+        methodExampleMap.add(callSite.calleeSignature,
+                callSite.callerClassFullName,
+                callSite.callerSignature,
+                callSite.line,
+                code);
+    }
+
+    /** A call to a method of the project, whose slice is used as an example of the method's usage. */
+    private static class CallSite {
+        final CallableDeclaration<?> callee;
+        final CallableDeclaration<?> caller;
+        final Expression call;
+        final String calleeSignature;
+        final String callerSignature;
+        final CompilationUnit callerCompilationUnit;
+        final String callerClassFullName;
+        final int line;
+        final SlicingCriterion criterion;
+
+        CallSite(CallableDeclaration<?> callee, CallableDeclaration<?> caller, Expression call, String calleeSignature,
+                 String callerSignature, CompilationUnit callerCompilationUnit, String callerClassFullName, int line,
+                 SlicingCriterion criterion) {
+            this.callee = callee;
+            this.caller = caller;
+            this.call = call;
+            this.calleeSignature = calleeSignature;
+            this.callerSignature = callerSignature;
+            this.callerCompilationUnit = callerCompilationUnit;
+            this.callerClassFullName = callerClassFullName;
+            this.line = line;
+            this.criterion = criterion;
+        }
+    }
+
+    private String findCodeBySlice(Slice slice, TypeDeclaration<?> callerType) {
+        return slice.toAst(callerType).map(Node::toString).orElse(null);
     }
 
 
@@ -204,7 +535,7 @@ public class ProjectParser {
     private boolean isPrimitiveOrString(Expression expr) {
         if (expr.isNameExpr()) {
             try {
-                ResolvedType type = expr.asNameExpr().resolve().getType();
+                ResolvedType type = ResolutionCache.resolve(expr.asNameExpr()).getType();
                 if (type.isPrimitive()) {
                     return true;
                 }
@@ -220,9 +551,9 @@ public class ProjectParser {
 
     private String getSignatureByCallable(CallableDeclaration<?> callable) {
         if (callable.isMethodDeclaration()) {
-            return callable.asMethodDeclaration().resolve().getSignature();
+            return ResolutionCache.resolve(callable.asMethodDeclaration()).getSignature();
         } else if (callable.isConstructorDeclaration()) {
-            return callable.asConstructorDeclaration().resolve().getSignature();
+            return ResolutionCache.resolve(callable.asConstructorDeclaration()).getSignature();
         } else {
             throw new RuntimeException("Unsupported callable type: " + callable.getClass().getSimpleName());
         }
@@ -231,12 +562,14 @@ public class ProjectParser {
     private String getQualifiedSignatureByCallable(CallableDeclaration<?> callable) {
         if (callable.isMethodDeclaration()) {
             MethodDeclaration md = callable.asMethodDeclaration();
-            return md.resolve().getQualifiedSignature()
-                    .replace(md.resolve().getSignature(), md.getSignature().asString());
+            ResolvedMethodDeclaration resolved = ResolutionCache.resolve(md);
+            return resolved.getQualifiedSignature()
+                    .replace(resolved.getSignature(), md.getSignature().asString());
         } else if (callable.isConstructorDeclaration()) {
             ConstructorDeclaration cd = callable.asConstructorDeclaration();
-            return cd.resolve().getQualifiedSignature()
-                    .replace(cd.resolve().getSignature(), cd.getSignature().asString());
+            ResolvedConstructorDeclaration resolved = ResolutionCache.resolve(cd);
+            return resolved.getQualifiedSignature()
+                    .replace(resolved.getSignature(), cd.getSignature().asString());
         } else {
             throw new RuntimeException("Unsupported callable type: " + callable.getClass().getSimpleName());
         }
@@ -247,20 +580,7 @@ public class ProjectParser {
     }
 
     private Set<Edge<?>> findEdgeByCallGraph(CallableDeclaration node, CallGraph callGraph) {
-        Vertex ver = new Vertex(node);
-        return callGraph.edgesOf(ver);
-    }
-
-    private List<CallableDeclaration<?>> findCallerByCallGraph(CallableDeclaration node, CallGraph callGraph) {
-        List<CallableDeclaration<?>> callerList = new ArrayList<>();
-        Vertex ver = new Vertex(node);
-        callGraph.edgesOf(ver).forEach(edge -> {
-            if (edge.getTarget().equals(node)) {
-                System.out.println("find caller: " + edge.getSource());
-                callerList.add(edge.getSource());
-            }
-        });
-        return callerList;
+        return callGraph.edgesOf(node);
     }
 
     public void addClassMap(CompilationUnit cu) {
@@ -287,7 +607,7 @@ public class ProjectParser {
             }
         }
         try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(path.toFile()), StandardCharsets.UTF_8)){
-            writer.write(config.getGSON().toJson(obj));
+            writer.write(GSON.toJson(obj));
         } catch (Exception e) {
             throw new RuntimeException("In ProjectParser.exportJson: " + e);
         }
@@ -330,8 +650,7 @@ public class ProjectParser {
     }
 
     public void exportMethodExampleMap(MethodExampleMap methodExampleMap) {
-        Path savePath = config.tmpOutput.resolve("methodExampleCode.json");
-        exportJson(savePath, methodExampleMap.getMEM());
+        exportJson(config.getMinedExamplePath(), methodExampleMap.getMEM());
     }
 
     public static void setLanguageLevel(ParserConfiguration configuration) {
@@ -31,6 +31,8 @@ public class PromptTemplate {
 
     public static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
     public static final String CONFIG_FILE = "config.properties";
+    /** Data model variables whose value comes from the mined method usage examples. */
+    public static final List<String> EXAMPLE_VARIABLES = List.of("example_usage");
     public String TEMPLATE_INIT = "";
     public String TEMPLATE_EXTRA = "";
     public String TEMPLATE_REPAIR = "";
@@ -98,6 +100,43 @@ public class PromptTemplate {
         return generatedText;
     }
 
+    /**
+     * Checks whether any of the configured templates (and their system variants) reference one of
+     * the {@link #EXAMPLE_VARIABLES}. Templates that cannot be read are considered not to.
+     */
+    public static boolean templatesReferenceExamples(Path promptPath, Properties properties) {
+        if (properties == null) {
+            return false;
+        }
+        for (String key : List.of("PROMPT_TEMPLATE_INIT", "PROMPT_TEMPLATE_EXTRA", "PROMPT_TEMPLATE_REPAIR")) {
+            String templateName = properties.getProperty(key);
+            if (templateName == null) {
+                continue;
+            }
+            for (String name : List.of(templateName, templateName.replaceFirst("\\.", "_system."))) {
+                String content = readTemplateSource(promptPath, name);
+                if (content != null && EXAMPLE_VARIABLES.stream().anyMatch(content::contains)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String readTemplateSource(Path promptPath, String templateName) {
+        try {
+            if (promptPath == null) {
+                try (var in = PromptTemplate.class.getResourceAsStream("/prompt/" + templateName)) {
+                    return in == null ? null : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            Path templatePath = promptPath.resolve(templateName);
+            return Files.exists(templatePath) ? Files.readString(templatePath, StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     public void buildDataModel(Config config, PromptInfo promptInfo) throws IOException {
         Map<String, String> cdep_temp = new HashMap<>();
         Map<String, String> mdep_temp = new HashMap<>();
@@ -121,8 +160,12 @@ public class PromptTemplate {
             this.dataModel.put("dep_m_sigs_ano_com",getDepBriefWithAno(promptInfo.getClassInfo(),promptInfo.getMethodInfo()));
         }
         // String
-        if (config.getExamplePath() != null) {
-            ExampleUsage exampleUsage = new ExampleUsage(config.getExamplePath(), promptInfo.className);
+        // Without an example path, the examples mined while parsing the project are used
+        if (config.getExamplePath() != null
+                || (config.getAnalysisLevel() != null && config.getAnalysisLevel().buildsGraph())) {
+            ExampleUsage exampleUsage = config.getExamplePath() != null ?
+                    new ExampleUsage(config.getExamplePath(), promptInfo.className) :
+                    ExampleUsage.fromMinedExamples(config.getMinedExamplePath(), promptInfo.fullClassName);
             this.dataModel.put("example_usage", exampleUsage.getShortestUsage(promptInfo.getMethodInfo().methodSignature));
         }
         this.dataModel.put("project_full_code", getFullProjectCode(promptInfo.getClassName(), config));
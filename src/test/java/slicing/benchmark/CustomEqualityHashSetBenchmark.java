@@ -0,0 +1,104 @@
+package slicing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import slicing.utils.CustomEqualityHashSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the speed of {@link CustomEqualityHashSet} and {@link HashSet} with JMH. Each invocation
+ * applies the same random sequence of additions, removals and lookups to an empty set. Keys share
+ * their hash codes in groups, so that collisions are probed as well. Run it from the test classpath,
+ * e.g., with {@code java -cp <test classpath> slicing.benchmark.CustomEqualityHashSetBenchmark}.
+ * The correctness of the set is checked by {@code CustomEqualityHashSetTest}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CustomEqualityHashSetBenchmark {
+    protected static final int KEYS = 8192;
+
+    /** Number of operations applied per invocation. */
+    @Param({"200000"})
+    public int operations;
+
+    /** Values below {@link #KEYS} are added, values in the next quarter are removed and the rest are looked up. */
+    protected int[] sequence;
+    protected Key[] keys;
+
+    @Setup
+    public void setUp() {
+        sequence = new Random(43).ints(operations, 0, 4 * KEYS).toArray();
+        keys = new Key[KEYS];
+        for (int i = 0; i < KEYS; i++)
+            keys[i] = new Key(i);
+    }
+
+    @Benchmark
+    public void customEqualityHashSet(Blackhole blackhole) {
+        apply(new KeySet(), blackhole);
+    }
+
+    @Benchmark
+    public void hashSet(Blackhole blackhole) {
+        apply(new HashSet<>(), blackhole);
+    }
+
+    protected void apply(Set<Key> set, Blackhole blackhole) {
+        for (int value : sequence) {
+            Key key = keys[value % KEYS];
+            if (value < KEYS)
+                blackhole.consume(set.add(key));
+            else if (value < 2 * KEYS)
+                blackhole.consume(set.remove(key));
+            else
+                blackhole.consume(set.contains(key));
+        }
+        blackhole.consume(set);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CustomEqualityHashSetBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /** A key whose hash code is shared by each group of 4 consecutive values. */
+    protected static class Key {
+        protected final int value;
+
+        protected Key(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value / 4;
+        }
+    }
+
+    protected static class KeySet extends CustomEqualityHashSet<Key> {
+        @Override
+        protected boolean objEquals(Key a, Object b) {
+            return a.equals(b);
+        }
+
+        @Override
+        protected boolean objInstanceOf(Object o) {
+            return o instanceof Key;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package slicing.benchmark;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import slicing.graphs.jsysdg.JSysDG;
+import slicing.graphs.sdg.SDG;
+import slicing.utils.AnalysisContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures the heap retained by the nodes of a {@link JSysDG}, built from the sources in the
+ * directory given as first argument (e.g., {@code src/main/java}). The jars it depends on may be
+ * given as further arguments, so that its calls can be resolved. The used heap is measured, after
+ * collecting garbage, with the compilation units parsed and again once the graph has been built,
+ * and the difference is divided by the number of nodes. The resolutions cached while building
+ * in the graph's analysis context are cleared first, so that only the graph (with its CFGs, call
+ * graph and class graph) and the data the symbol solver stores in the AST are measured. Run it
+ * with a fixed heap (e.g., {@code -Xms4g -Xmx4g}) for stable results.
+ */
+public class GraphFootprintBenchmark {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: GraphFootprintBenchmark <source directory> [dependency jar]...");
+            System.exit(1);
+        }
+        Path sourceDir = Paths.get(args[0]);
+        AnalysisContext context = new AnalysisContext();
+        context.addTypeSolver(new JavaParserTypeSolver(sourceDir));
+        context.addTypeSolverJRE();
+        for (int i = 1; i < args.length; i++)
+            context.addTypeSolver(new JarTypeSolver(args[i]));
+        JavaParser parser = new JavaParser(new ParserConfiguration().setSymbolResolver(context.getSymbolResolver()));
+        NodeList<CompilationUnit> cus = new NodeList<>();
+        for (Path file : javaFiles(sourceDir))
+            parser.parse(file).getResult().ifPresent(cus::add);
+
+        long before = usedHeap();
+        // The graph is built in the analysis context it is created in
+        SDG sdg = context.call(JSysDG::new);
+        sdg.build(cus);
+        sdg.getAnalysisContext().getResolutionCache().clear();
+        sdg.getAnalysisContext().getExceptionTypeCache().clear();
+        JavaParserFacade.clearInstances();
+        long after = usedHeap();
+
+        int nodes = sdg.vertexSet().size();
+        System.out.printf("Compilation units: %d%n", cus.size());
+        System.out.printf("Nodes: %d, arcs: %d%n", nodes, sdg.edgeSet().size());
+        System.out.printf("Graph heap: %d bytes, %.1f bytes per node%n", after - before, (double) (after - before) / nodes);
+    }
+
+    protected static List<Path> javaFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(f -> f.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /** The heap in use, after collecting garbage until it stops decreasing. */
+    protected static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current >= used)
+                break;
+            used = current;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,160 @@
+package slicing.graphs.sdg;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import slicing.graphs.jsysdg.JSysDG;
+import slicing.nodes.GraphNode;
+import slicing.utils.AnalysisContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link SDG#update(NodeList)} against a graph built from scratch: a small project is built,
+ * one of its files is edited and parsed again, and the updated graph must contain the same nodes and
+ * arcs as a graph built from the edited sources in a new {@link AnalysisContext}.
+ */
+public class SDGUpdateTest {
+    protected static final String SHAPE = "package shapes;\n" +
+            "public abstract class Shape {\n" +
+            "    protected int scale = 1;\n" +
+            "    public abstract int area();\n" +
+            "    public int scaled() {\n" +
+            "        return area() * scale;\n" +
+            "    }\n" +
+            "}\n";
+    protected static final String SQUARE = "package shapes;\n" +
+            "public class Square extends Shape {\n" +
+            "    protected static int count;\n" +
+            "    protected int side;\n" +
+            "    public Square(int side) {\n" +
+            "        this.side = side;\n" +
+            "        count++;\n" +
+            "    }\n" +
+            "    public int area() {\n" +
+            "        return side * side;\n" +
+            "    }\n" +
+            "}\n";
+    protected static final String CIRCLE = "package shapes;\n" +
+            "public class Circle extends Shape {\n" +
+            "    protected int radius;\n" +
+            "    public Circle(int radius) {\n" +
+            "        this.radius = radius;\n" +
+            "    }\n" +
+            "    public int area() {\n" +
+            "        return 3 * radius * radius;\n" +
+            "    }\n" +
+            "}\n";
+    protected static final String MAIN = "package shapes;\n" +
+            "public class Main {\n" +
+            "    public static int total(Shape[] shapes) {\n" +
+            "        int total = 0;\n" +
+            "        for (Shape shape : shapes)\n" +
+            "            total += shape.scaled();\n" +
+            "        return total;\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        Shape[] shapes = { new Square(args.length), new Circle(2) };\n" +
+            "        System.out.println(total(shapes));\n" +
+            "    }\n" +
+            "}\n";
+
+    @TempDir
+    protected Path sources;
+
+    @Test
+    public void editedMethodMatchesFreshBuild() throws IOException {
+        write("Shape.java", SHAPE);
+        write("Square.java", SQUARE);
+        write("Circle.java", CIRCLE);
+        write("Main.java", MAIN);
+        AnalysisContext context = newContext();
+        SDG sdg = context.call(JSysDG::new);
+        sdg.build(parse(context));
+        List<String> before = describe(sdg);
+
+        // Same types and fields, but area() now reads a field of its superclass. The type node of
+        // Square, with the object tree of its static fields, is replaced as well
+        write("Square.java", SQUARE.replace("return side * side;", "int area = side * side;\n        return area * scale;"));
+        sdg.update(parse(context));
+
+        AnalysisContext freshContext = newContext();
+        SDG fresh = freshContext.call(JSysDG::new);
+        fresh.build(parse(freshContext));
+        List<String> expected = describe(fresh);
+        assertNotEquals(before, expected);
+        assertEquals(expected, describe(sdg));
+    }
+
+    @Test
+    public void unchangedSourcesKeepTheGraph() throws IOException {
+        write("Shape.java", SHAPE);
+        write("Square.java", SQUARE);
+        write("Circle.java", CIRCLE);
+        write("Main.java", MAIN);
+        AnalysisContext context = newContext();
+        SDG sdg = context.call(JSysDG::new);
+        NodeList<CompilationUnit> cus = parse(context);
+        sdg.build(cus);
+        List<String> before = describe(sdg);
+        sdg.update(parse(context));
+        assertEquals(before, describe(sdg));
+        for (int i = 0; i < cus.size(); i++)
+            assertSame(cus.get(i), sdg.getCompilationUnits().get(i));
+    }
+
+    protected void write(String file, String contents) throws IOException {
+        Path packageDir = Files.createDirectories(sources.resolve("shapes"));
+        Files.writeString(packageDir.resolve(file), contents);
+    }
+
+    protected AnalysisContext newContext() {
+        AnalysisContext context = new AnalysisContext();
+        context.addTypeSolver(new JavaParserTypeSolver(sources));
+        context.addTypeSolverJRE();
+        return context;
+    }
+
+    /** Parses every source file, sorted by name, resolving symbols in the given context. */
+    protected NodeList<CompilationUnit> parse(AnalysisContext context) throws IOException {
+        JavaParser parser = new JavaParser(new ParserConfiguration().setSymbolResolver(context.getSymbolResolver()));
+        NodeList<CompilationUnit> cus = new NodeList<>();
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(sources.resolve("shapes"))) {
+            files = stream.sorted().collect(Collectors.toList());
+        }
+        for (Path file : files)
+            cus.add(parser.parse(file).getResult().orElseThrow());
+        return cus;
+    }
+
+    /** Describes every node and arc of the graph by their classes, labels and source ranges, sorted,
+     *  so that graphs built in different contexts (with different node ids) can be compared. */
+    protected static List<String> describe(SDG sdg) {
+        List<String> descriptions = new ArrayList<>();
+        for (GraphNode<?> node : sdg.vertexSet())
+            descriptions.add(describe(node));
+        sdg.edgeSet().forEach(arc -> descriptions.add(describe(sdg.getEdgeSource(arc))
+                + " -" + arc.getClass().getSimpleName() + "-> " + describe(sdg.getEdgeTarget(arc))));
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    protected static String describe(GraphNode<?> node) {
+        String range = node.getAstNode() == null ? "" : node.getAstNode().getRange().map(Object::toString).orElse("");
+        return node.getClass().getSimpleName() + " " + node.getLabel() + " " + range;
+    }
+}
@@ -0,0 +1,122 @@
+package slicing.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link CustomEqualityHashSet} against {@link HashSet}: the same random sequence of additions,
+ * removals, lookups and removals through an iterator is applied to both sets, and every result must
+ * match. Keys share their hash codes in groups, so that collisions are probed as well.
+ */
+public class CustomEqualityHashSetTest {
+    protected static final int KEYS = 8192;
+    protected static final int OPERATIONS = 200_000;
+
+    @Test
+    public void matchesHashSet() {
+        for (long seed = 0; seed < 5; seed++)
+            check(seed);
+    }
+
+    @Test
+    public void growsAndShrinks() {
+        Set<Key> set = new KeySet();
+        for (int i = 0; i < KEYS; i++)
+            assertTrue(set.add(new Key(i)));
+        assertEquals(KEYS, set.size());
+        for (int i = 0; i < KEYS; i++)
+            assertFalse(set.add(new Key(i)));
+        for (int i = 0; i < KEYS; i += 2)
+            assertTrue(set.remove(new Key(i)));
+        for (int i = 0; i < KEYS; i++)
+            assertEquals(i % 2 == 1, set.contains(new Key(i)), "Key " + i);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void rejectsOtherTypes() {
+        Set<Key> set = new KeySet();
+        set.add(new Key(1));
+        assertFalse(set.contains("1"));
+        assertFalse(set.remove(1));
+        assertEquals(1, set.size());
+    }
+
+    /** Applies the same random operations to both sets, failing on the first difference. */
+    protected void check(long seed) {
+        Random random = new Random(seed);
+        Set<Key> expected = new HashSet<>();
+        Set<Key> actual = new KeySet();
+        for (int i = 0; i < OPERATIONS; i++) {
+            Key key = new Key(random.nextInt(KEYS));
+            int operation = random.nextInt(100);
+            String message = "Seed " + seed + ", operation " + i;
+            if (operation < 45)
+                assertEquals(expected.add(key), actual.add(key), message);
+            else if (operation < 70)
+                assertEquals(expected.remove(key), actual.remove(key), message);
+            else if (operation < 99)
+                assertEquals(expected.contains(key), actual.contains(key), message);
+            else
+                removeByIterator(actual, expected, random);
+            assertEquals(expected.size(), actual.size(), message);
+        }
+        assertEquals(expected, new HashSet<>(actual));
+    }
+
+    /** Removes a random fraction of the elements through the iterator of {@code set}, and the same ones from {@code expected}. */
+    protected void removeByIterator(Set<Key> set, Set<Key> expected, Random random) {
+        int size = set.size();
+        Set<Key> visited = new HashSet<>();
+        for (Iterator<Key> it = set.iterator(); it.hasNext(); ) {
+            Key key = it.next();
+            assertTrue(visited.add(key), "Element returned twice by the iterator: " + key);
+            if (random.nextInt(4) == 0) {
+                it.remove();
+                expected.remove(key);
+            }
+        }
+        assertEquals(size, visited.size());
+    }
+
+    /** A key whose hash code is shared by each group of 4 consecutive values. */
+    protected static class Key {
+        protected final int value;
+
+        protected Key(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value / 4;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    protected static class KeySet extends CustomEqualityHashSet<Key> {
+        @Override
+        protected boolean objEquals(Key a, Object b) {
+            return a.equals(b);
+        }
+
+        @Override
+        protected boolean objInstanceOf(Object o) {
+            return o instanceof Key;
+        }
+    }
+}